@@ -32,9 +32,9 @@ public class Agency {
         existingTrip.setDescription(description);
         existingTrip.setPrice(price);
         existingTrip.setDate(date);
-        existingTrip.getBookingRegister().setMinTrav(minTrav);
-        existingTrip.getBookingRegister().setMaxTrav(maxTrav);
-        existingTrip.getAssignmentRegister().setMaxGuides(maxGuides);
+        existingTrip.setMinTrav(minTrav);
+        existingTrip.setMaxTrav(maxTrav);
+        existingTrip.setMaxGuides(maxGuides);
         tripService.updateTrip(existingTrip);
     }
 
@@ -6,6 +6,7 @@ import model.user.Guide;
 import model.user.Skill;
 import model.notification.Notification;
 import model.trip.Trip;
+import model.trip.TripPage;
 
 
 import java.time.LocalDate;
@@ -16,6 +17,9 @@ public class GuideController {
     private ViewTripsService viewTripsService;
     private ApplicationService applicationService;
     private NotificationService notificationService;
+    private GuideService guideService;
+    // Ultimo filtro usato da questa guida, applicato anche al dettaglio dei viaggi
+    private TripFilterStrategy currentFilter;
 
     public GuideController(Guide guide, ViewTripsService viewTripsService, ApplicationService applicationService, NotificationService notificationService) {
         this.guide = guide;
@@ -24,13 +28,24 @@ public class GuideController {
         this.notificationService = notificationService;
     }
 
+    public GuideController(Guide guide, ViewTripsService viewTripsService, ApplicationService applicationService,
+                           NotificationService notificationService, GuideService guideService) {
+        this(guide, viewTripsService, applicationService, notificationService);
+        this.guideService = guideService;
+    }
+
     public List<Trip> viewAvailableTrips(LocalDate minDate, LocalDate maxDate) {
-        viewTripsService.setStrategy(new GuideFilter(guide, minDate, maxDate));
-        return viewTripsService.viewTrips();
+        currentFilter = new GuideFilter(guide, minDate, maxDate);
+        return viewTripsService.viewTrips(currentFilter);
+    }
+
+    public TripPage viewAvailableTrips(LocalDate minDate, LocalDate maxDate, TripPage previous) {
+        currentFilter = new GuideFilter(guide, minDate, maxDate);
+        return viewTripsService.viewTrips(currentFilter, previous, ViewTripsService.DEFAULT_PAGE_SIZE);
     }
 
     public Trip viewTripDetails(int tripId) {
-        return viewTripsService.viewTripDetails(tripId);
+        return viewTripsService.viewTripDetails(tripId, currentFilter);
     }
 
     public void submitApplication(Trip trip, String cv) {
@@ -43,7 +58,10 @@ public class GuideController {
 
     public void updateGuideProfile(List<Skill> updatedSkills) {
         guide.setSkills(updatedSkills);
-        // If persistent storage is used, call the GuideService or DAO to update the guide in the database.
+        // Persists the guide and moves it to the right skill partitions of the ranking
+        if (guideService != null) {
+            guideService.updateGuide(guide);
+        }
     }
 
     public Notification readNextUnreadNotification() {
@@ -5,6 +5,7 @@ import model.notification.Notification;
 import model.review.Review;
 import model.review.Reviewable;
 import model.trip.Trip;
+import model.trip.TripPage;
 import model.user.Traveler;
 
 
@@ -18,6 +19,8 @@ public class TravelerController {
     private final BookingService bookingService;
     private final NotificationService notificationService;
     private final ReviewService reviewService;
+    // Ultimo filtro usato da questo viaggiatore, applicato anche al dettaglio dei viaggi
+    private TripFilterStrategy currentFilter;
 
     public TravelerController(Traveler traveler, ViewTripsService viewTripsService, BookingService bookingService,
                               NotificationService notificationService, ReviewService reviewService) {
@@ -29,12 +32,17 @@ public class TravelerController {
     }
 
     public List<Trip> viewAvailableTrips(LocalDate minDate, LocalDate maxDate, Double maxPrice) {
-        viewTripsService.setStrategy(new TravelerFilter(traveler, minDate, maxDate, maxPrice));
-        return viewTripsService.viewTrips();
+        currentFilter = new TravelerFilter(traveler, minDate, maxDate, maxPrice);
+        return viewTripsService.viewTrips(currentFilter);
+    }
+
+    public TripPage viewAvailableTrips(LocalDate minDate, LocalDate maxDate, Double maxPrice, TripPage previous) {
+        currentFilter = new TravelerFilter(traveler, minDate, maxDate, maxPrice);
+        return viewTripsService.viewTrips(currentFilter, previous, ViewTripsService.DEFAULT_PAGE_SIZE);
     }
 
     public Trip viewTripDetails(int tripId) {
-        return viewTripsService.viewTripDetails(tripId);
+        return viewTripsService.viewTripDetails(tripId, currentFilter);
     }
 
     public void bookTrip(Trip trip) {
@@ -9,6 +9,7 @@ import java.util.Comparator;
 import java.util.List;
 import business.service.NotificationService;
 import model.notification.Notification;
+import model.notification.NotificationTemplate;
 
 public class ApplicationService {
     private final ApplicationDAO applicationDAO;
@@ -23,17 +24,17 @@ public class ApplicationService {
 
     public void sendApplication(String cv, Guide guide, Trip trip) {
         Application application = new Application(cv, guide, trip); // ID will be assigned by DB
-        applicationRegister.addApplication(application);             // internal logic
+        applicationRegister.addApplication(application);             // internal logic, rejects duplicates
         applicationDAO.save(application);                            // persistence
     }
 
     public void updateApplicationStatus(Application application, boolean accepted) {
         if (accepted) {
             application.accept();
-            notificationService.sendNotification(application.getGuide(), "Your application for the trip \"" + application.getTrip().getTitle() + "\" has been accepted.");
+            notificationService.sendNotification(application.getGuide(), NotificationTemplate.APPLICATION_ACCEPTED, application.getTrip().getTitle());
         } else {
             application.reject();
-            notificationService.sendNotification(application.getGuide(), "Your application for the trip \"" + application.getTrip().getTitle() + "\" has been rejected. :(");
+            notificationService.sendNotification(application.getGuide(), NotificationTemplate.APPLICATION_REJECTED, application.getTrip().getTitle());
         }
         applicationDAO.update(application); // update status in DB
     }
@@ -44,11 +45,11 @@ public class ApplicationService {
 
 
     public void withdrawApplication(Guide guide, Trip trip) {
-        Application application = trip.getApplicationRegister().getApplicationByGuide(guide);
+        Application application = applicationRegister.getApplication(guide, trip);
         if (application != null && application.isPending()) {
             applicationRegister.removeApplication(application);
             applicationDAO.delete(application);
-            notificationService.sendNotification(guide, "Your application for the trip \"" + trip.getTitle() + "\" has been withdrawn.");
+            notificationService.sendNotification(guide, NotificationTemplate.APPLICATION_WITHDRAWN, trip.getTitle());
         }
     }
 }
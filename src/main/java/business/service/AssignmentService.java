@@ -8,9 +8,12 @@ import model.application.ApplicationRegister;
 import dao.interfaces.AssignmentDAO;
 import business.service.NotificationService;
 import model.notification.Notification;
+import model.notification.NotificationTemplate;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 public class AssignmentService {
 
@@ -31,27 +34,55 @@ public class AssignmentService {
         int alreadyAssigned = trip.getAssignmentRegister().getAssignments().size();
         int remaining = maxGuides - alreadyAssigned;
 
-        if (remaining <= 0) return;
+        if (remaining <= 0 || acceptedApplications.isEmpty()) return;
 
-        acceptedApplications.stream()
-            .sorted(Comparator.comparingDouble((Application a) -> a.getGuide().getRating()).reversed())
-            .limit(remaining)
-            .forEach(app -> {
-                Guide guide = app.getGuide();
-                Assignment assignment = new Assignment(guide, trip);
-                trip.getAssignmentRegister().addAssignment(assignment);
-                assignmentDAO.save(assignment);
+        // Top-K: min-heap dei migliori "remaining" candidati, con il rating letto una sola volta per guida
+        PriorityQueue<Candidate> best = new PriorityQueue<>(remaining, Comparator.comparingDouble((Candidate c) -> c.rating));
+        for (Application app : acceptedApplications) {
+            double rating = app.getGuide().getRating();
+            if (best.size() < remaining) {
+                best.add(new Candidate(app.getGuide(), rating));
+            } else if (rating > best.peek().rating) {
+                best.poll();
+                best.add(new Candidate(app.getGuide(), rating));
+            }
+        }
 
-                notificationService.sendNotification(guide, "You have been assigned to the trip: " + trip.getTitle());
-            });
+        List<Candidate> chosen = new ArrayList<>(best);
+        chosen.sort(Comparator.comparingDouble((Candidate c) -> c.rating).reversed());
+
+        List<Assignment> assignments = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (Candidate candidate : chosen) {
+            assignments.add(new Assignment(candidate.guide, trip));
+            notifications.add(notificationService.prepareNotification(candidate.guide, NotificationTemplate.GUIDE_ASSIGNED, trip.getTitle()));
+        }
 
-        if (trip.getAssignmentRegister().getAssignments().size() == trip.getMaxGuides()) {
+        boolean complete = alreadyAssigned + assignments.size() == trip.getMaxGuides();
+        if (complete) {
             trip.getBookingRegister().getBookings().forEach(booking -> {
-                notificationService.sendNotification(
-                    booking.getTraveler(),
-                    "The guides for your trip \"" + trip.getTitle() + "\" have been assigned and are now complete."
-                );
+                notifications.add(notificationService.prepareNotification(
+                    booking.getTraveler(), NotificationTemplate.GUIDES_COMPLETE, trip.getTitle()));
             });
         }
+
+        // Assegnazioni e notifiche salvate insieme, in un'unica transazione
+        if (!assignmentDAO.saveAll(assignments, notifications)) {
+            return;
+        }
+        for (Assignment assignment : assignments) {
+            trip.getAssignmentRegister().addAssignment(assignment);
+        }
+        notificationService.deliverAll(notifications);
+    }
+
+    private static final class Candidate {
+        final Guide guide;
+        final double rating;
+
+        Candidate(Guide guide, double rating) {
+            this.guide = guide;
+            this.rating = rating;
+        }
     }
 }
@@ -6,39 +6,125 @@ import model.user.Traveler;
 import model.booking.Booking;
 import model.booking.BookingRegister;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class BookingService {
 
     private BookingDAO bookingDAO;
+    private TripIndex tripIndex;
+    private TripSearchCache searchCache;
 
     public BookingService(BookingDAO bookingDAO) {
         this.bookingDAO = bookingDAO;
     }
 
+    public BookingService(BookingDAO bookingDAO, TripIndex tripIndex) {
+        this.bookingDAO = bookingDAO;
+        this.tripIndex = tripIndex;
+    }
+
+    public BookingService(BookingDAO bookingDAO, TripIndex tripIndex, TripSearchCache searchCache) {
+        this.bookingDAO = bookingDAO;
+        this.tripIndex = tripIndex;
+        this.searchCache = searchCache;
+    }
+
     public boolean bookTrip(Traveler traveler, Trip trip) {
+        BookingRegister.requireSavedTraveler(traveler);
         BookingRegister register = trip.getBookingRegister();
-        if (register.getAvailableSpots() > 0 && !register.hasBooking(traveler)) {
-            Booking booking = new Booking(traveler, trip);
-            register.addBooking(booking);
-            bookingDAO.save(booking);
-            return true;
+        if (register.hasBooking(traveler)) {
+            return false;
         }
-        return false;
+        // Prima il posto in memoria (CAS, senza lock), poi la conferma atomica sul database
+        if (!register.tryReserveSeat()) {
+            return false;
+        }
+        Booking booking = new Booking(traveler, trip);
+        if (!register.addBooking(booking)) {
+            // stesso viaggiatore prenotato nel frattempo da un'altra richiesta
+            register.releaseSeat();
+            return false;
+        }
+        // Posto e riga della prenotazione nella stessa transazione: se il salvataggio fallisce il posto non resta occupato
+        if (!bookingDAO.saveGroup(trip, Collections.singletonList(booking))) {
+            register.removeBooking(booking);
+            register.releaseSeat();
+            return false;
+        }
+        onCapacityChanged(trip);
+        return true;
+    }
+
+    /**
+     * Prenota il viaggio per un gruppo di viaggiatori: o vengono prenotati tutti, o nessuno.
+     * I posti sono riservati tutti insieme e le prenotazioni salvate in un'unica transazione.
+     */
+    public boolean bookGroup(List<Traveler> travelers, Trip trip) {
+        BookingRegister register = trip.getBookingRegister();
+        if (travelers.isEmpty()) {
+            return false;
+        }
+        // Per ID: Traveler non ridefinisce equals, due istanze dello stesso viaggiatore sono oggetti diversi
+        Set<Integer> distinct = new HashSet<>();
+        for (Traveler traveler : travelers) {
+            BookingRegister.requireSavedTraveler(traveler);
+            if (!distinct.add(traveler.getTravelerId()) || register.hasBooking(traveler)) {
+                return false;
+            }
+        }
+        if (!register.tryReserveSeats(travelers.size())) {
+            return false;
+        }
+        List<Booking> group = new ArrayList<>();
+        for (Traveler traveler : travelers) {
+            group.add(new Booking(traveler, trip));
+        }
+        // Controllo dei duplicati e inserimento sotto il lock del registro, come in bookTrip:
+        // una prenotazione singola concorrente per uno dei viaggiatori fa fallire tutto il gruppo
+        if (!register.addBookings(group)) {
+            register.releaseSeats(travelers.size());
+            return false;
+        }
+        if (!bookingDAO.saveGroup(trip, group)) {
+            register.removeBookings(group);
+            register.releaseSeats(travelers.size());
+            return false;
+        }
+        onCapacityChanged(trip);
+        return true;
     }
 
     public boolean cancelBooking(Traveler traveler, Trip trip) {
         BookingRegister register = trip.getBookingRegister();
         Booking booking = register.getBookingByTraveler(traveler);
-        if (booking != null) {
-            register.removeBooking(booking);
-            bookingDAO.delete(booking);
-            return true;
+        // Solo chi rimuove davvero la prenotazione libera il posto: due cancellazioni concorrenti ne liberano uno
+        if (booking == null || !register.removeBooking(booking)) {
+            return false;
         }
-        return false;
+        // Riga e contatore dei posti nella stessa transazione; se fallisce la prenotazione resta valida
+        if (!bookingDAO.delete(booking)) {
+            register.addBooking(booking);
+            return false;
+        }
+        register.releaseSeat();
+        onCapacityChanged(trip);
+        return true;
     }
 
     public List<Booking> getBookingsForTrip(Trip trip) {
         return trip.getBookingRegister().getBookings();
     }
+
+    private void onCapacityChanged(Trip trip) {
+        if (tripIndex != null) {
+            tripIndex.updateFreeSpots(trip);
+        }
+        if (searchCache != null) {
+            searchCache.onCapacityChanged(trip);
+        }
+    }
 }
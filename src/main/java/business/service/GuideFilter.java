@@ -2,8 +2,7 @@ package business.service;
 
 import model.user.Guide;
 import model.trip.Trip;
-import java.util.ArrayList;
-import java.util.List;
+import model.trip.TripCriteria;
 import java.time.LocalDate;
 
 public class GuideFilter implements TripFilterStrategy {
@@ -26,17 +25,16 @@ public class GuideFilter implements TripFilterStrategy {
     }
 
     @Override
-    public List<Trip> filterTrips(List<Trip> allTrips) {
-        List<Trip> result = new ArrayList<>();
-        for (Trip trip : allTrips) {
-            boolean hasRequiredSkills = guide.getSkills().containsAll(trip.getRequiredSkills());
-            boolean dateOK = (minDate == null || !trip.getDate().isBefore(minDate)) &&
-                             (maxDate == null || !trip.getDate().isAfter(maxDate));
-
-            if (hasRequiredSkills && dateOK) {
-                result.add(trip);
-            }
-        }
-        return result;
+    public boolean test(Trip trip) {
+        boolean hasRequiredSkills = guide.hasAllSkills(trip.getRequiredSkillMask());
+        boolean dateOK = (minDate == null || !trip.getDate().isBefore(minDate)) &&
+                         (maxDate == null || !trip.getDate().isAfter(maxDate));
+
+        return hasRequiredSkills && dateOK;
+    }
+
+    @Override
+    public TripCriteria toCriteria() {
+        return new TripCriteria(minDate, maxDate, null, false, guide.getSkillMask());
     }
 }
@@ -0,0 +1,118 @@
+package business.service;
+
+import model.user.Guide;
+import model.user.Skill;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Classifica delle guide per rating, partizionata per skill.
+ * Per ogni skill c'è una skip list ordinata per rating decrescente; una ricerca top-K scorre
+ * la lista della skill richiesta meno diffusa e scarta con la bitmask le guide senza le altre skill.
+ * Le letture non prendono lock; gli aggiornamenti sono serializzati.
+ */
+public class GuideRankingIndex {
+
+    private static final Comparator<Entry> BY_RATING_DESC =
+            Comparator.comparingDouble((Entry e) -> e.rating).reversed().thenComparingInt(e -> e.guideId);
+
+    private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(BY_RATING_DESC);
+    private final Map<Skill, NavigableSet<Entry>> bySkill = new EnumMap<>(Skill.class);
+    private final int[] skillSizes = new int[Skill.values().length];
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    public GuideRankingIndex() {
+        for (Skill skill : Skill.values()) {
+            bySkill.put(skill, new ConcurrentSkipListSet<>(BY_RATING_DESC));
+        }
+    }
+
+    public void load(Collection<Guide> guides) {
+        for (Guide guide : guides) {
+            update(guide);
+        }
+    }
+
+    // Da chiamare quando cambiano il rating o le skill di una guida
+    public synchronized void update(Guide guide) {
+        Entry previous = entries.get(guide.getGuideId());
+        Entry entry = new Entry(guide);
+        if (previous != null && previous.rating == entry.rating && previous.skillMask == entry.skillMask) {
+            return;
+        }
+        if (previous != null) {
+            unlink(previous);
+        }
+        entries.put(entry.guideId, entry);
+        all.add(entry);
+        for (Skill skill : Skill.fromMask(entry.skillMask)) {
+            bySkill.get(skill).add(entry);
+            skillSizes[skill.ordinal()]++;
+        }
+    }
+
+    public synchronized void remove(int guideId) {
+        Entry previous = entries.remove(guideId);
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    /**
+     * Le k guide con rating più alto che hanno tutte le skill richieste.
+     */
+    public List<Guide> topK(Collection<Skill> requiredSkills, int k) {
+        long requiredMask = Skill.toMask(requiredSkills);
+        NavigableSet<Entry> candidates = all;
+        int smallest = Integer.MAX_VALUE;
+        for (Skill skill : Skill.fromMask(requiredMask)) {
+            int size = skillSizes[skill.ordinal()];
+            if (size < smallest) {
+                smallest = size;
+                candidates = bySkill.get(skill);
+            }
+        }
+
+        List<Guide> result = new ArrayList<>(Math.min(k, 64));
+        for (Entry entry : candidates) {
+            if (result.size() == k) {
+                break;
+            }
+            if (Skill.covers(entry.skillMask, requiredMask)) {
+                result.add(entry.guide);
+            }
+        }
+        return result;
+    }
+
+    private void unlink(Entry entry) {
+        all.remove(entry);
+        for (Skill skill : Skill.fromMask(entry.skillMask)) {
+            bySkill.get(skill).remove(entry);
+            skillSizes[skill.ordinal()]--;
+        }
+    }
+
+    // Snapshot of the values the guide was ranked with, so it can be found again after they change
+    private static final class Entry {
+        final Guide guide;
+        final int guideId;
+        final double rating;
+        final long skillMask;
+
+        Entry(Guide guide) {
+            this.guide = guide;
+            this.guideId = guide.getGuideId();
+            this.rating = guide.getRating();
+            this.skillMask = guide.getSkillMask();
+        }
+    }
+}
@@ -1,28 +1,74 @@
 package business.service;
 
+import dao.cache.EntityCaches;
+import dao.cache.IdentityMap;
 import dao.interfaces.GuideDAO;
 import model.user.Guide;
+import model.user.Skill;
+
+import java.util.Collection;
+import java.util.List;
 
 public class GuideService {
     private final GuideDAO guideDAO;
+    private final GuideRankingIndex rankingIndex;
 
     public GuideService(GuideDAO guideDAO) {
+        this(guideDAO, new GuideRankingIndex());
+    }
+
+    public GuideService(GuideDAO guideDAO, GuideRankingIndex rankingIndex) {
         this.guideDAO = guideDAO;
+        this.rankingIndex = rankingIndex;
     }
 
     public void addGuide(Guide guide) {
         guideDAO.save(guide);
+        rankingIndex.update(guide);
     }
 
+    // Prima l'identity map della richiesta, poi la cache di processo, infine il DB
     public Guide getGuideById(int id) {
-        return guideDAO.findById(id);
+        Guide guide = IdentityMap.get(Guide.class, id);
+        if (guide == null) {
+            guide = EntityCaches.GUIDES.get(id);
+        }
+        if (guide == null) {
+            // Letta prima della query: se nel frattempo il profilo viene aggiornato, il risultato non va in cache
+            long generation = EntityCaches.GUIDES.generation();
+            guide = guideDAO.getById(id);
+            if (guide == null) {
+                return null;
+            }
+            EntityCaches.GUIDES.putIfCurrent(id, guide, generation);
+        }
+        return IdentityMap.register(Guide.class, id, guide);
     }
 
     public void updateGuide(Guide guide) {
         guideDAO.update(guide);
+        EntityCaches.GUIDES.invalidate(guide.getGuideId());
+        rankingIndex.update(guide);
     }
 
     public void deleteGuide(int id) {
         guideDAO.delete(id);
+        EntityCaches.GUIDES.invalidate(id);
+        IdentityMap.remove(Guide.class, id);
+        rankingIndex.remove(id);
+    }
+
+    // Carica la classifica con tutte le guide presenti nel database
+    public void warmUpRanking() {
+        rankingIndex.load(guideDAO.getAll());
+    }
+
+    public GuideRankingIndex getRankingIndex() {
+        return rankingIndex;
+    }
+
+    // es. "le 10 guide migliori con FIRST_AID e CLIMBING"
+    public List<Guide> getTopGuides(Collection<Skill> requiredSkills, int k) {
+        return rankingIndex.topK(requiredSkills, k);
     }
 }
@@ -2,13 +2,29 @@ package business.service;
 
 import model.notification.Notification;
 import model.notification.Notifiable;
+import model.notification.NotificationRegister;
+import model.notification.NotificationTemplate;
+import model.notification.RecipientType;
+import model.trip.Trip;
+import model.trip.TripFetchPlan;
+import model.assignment.Assignment;
+import model.booking.Booking;
+import model.user.Guide;
+import model.user.Traveler;
+import dao.cache.EntityCaches;
+import dao.cache.IdentityMap;
 import dao.interfaces.NotificationDAO;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 public class NotificationService {
 
     private NotificationDAO notificationDAO;
+    private NotificationWriter notificationWriter; // se presente, il salvataggio è asincrono
 
     public NotificationService() {
     }
@@ -17,35 +33,191 @@ public class NotificationService {
         this.notificationDAO = notificationDAO;
     }
 
+    public NotificationService(NotificationDAO notificationDAO, NotificationWriter notificationWriter) {
+        this.notificationDAO = notificationDAO;
+        this.notificationWriter = notificationWriter;
+    }
+
     public void sendNotification(Notifiable recipient, String message) {
-        Notification notification = new Notification (message, recipient);
-        recipient.getNotificationRegister().addNotification(notification);
-        notificationDAO.save(notification);
+        sendNotification(recipient, NotificationTemplate.FREE_TEXT, message);
+    }
+
+    public void sendNotification(Notifiable recipient, NotificationTemplate template, String... params) {
+        Notification notification = new Notification(template, recipient, params);
+        if (notificationWriter != null) {
+            // Nessun accesso al DB sul thread del chiamante: la sequenza la assegna il thread di scrittura,
+            // intanto la notifica è nel registro come "in attesa"
+            NotificationRegister register = registerOf(recipient);
+            register.addNotification(notification);
+            if (!notificationWriter.enqueue(notification)) {
+                // scartata (coda piena con DROP): non avrà mai una sequenza, non deve contare come non letta
+                register.removeNotification(notification);
+            }
+        } else {
+            // Se il salvataggio fallisce la notifica resta in attesa nel registro, senza far fallire il chiamante
+            notificationDAO.save(notification);
+            registerOf(recipient).addNotification(notification);
+        }
+    }
+
+    // Con la scrittura asincrona, attende che le notifiche già inviate siano salvate
+    public void flush() {
+        if (notificationWriter != null) {
+            notificationWriter.flush();
+        }
+    }
+
+    /**
+     * Notifica tutte le guide assegnate e tutti i viaggiatori prenotati con un unico INSERT ... SELECT.
+     * I registri in memoria dei destinatari restituiti dall'INSERT (quelli del viaggio già caricati,
+     * della richiesta corrente e delle cache di processo) vengono segnati da ricaricare: rileggono
+     * le notifiche recenti dal DB alla prima consultazione. Restituisce il numero di notifiche create.
+     */
+    public int notifyTripParticipants(Trip trip, NotificationTemplate template, String... params) {
+        Map<RecipientType, List<Integer>> recipients = notificationDAO.notifyTripParticipants(trip.getTripId(), template, params);
+        Set<Long> notified = new HashSet<>();
+        for (Map.Entry<RecipientType, List<Integer>> byType : recipients.entrySet()) {
+            for (int recipientId : byType.getValue()) {
+                notified.add(recipientKey(byType.getKey(), recipientId));
+                if (byType.getKey() == RecipientType.GUIDE) {
+                    markStale(IdentityMap.get(Guide.class, recipientId), notified);
+                    markStale(EntityCaches.GUIDES.peek(recipientId), notified);
+                } else {
+                    markStale(IdentityMap.get(Traveler.class, recipientId), notified);
+                    markStale(EntityCaches.TRAVELERS.peek(recipientId), notified);
+                }
+            }
+        }
+        // Senza forzare il caricamento dei registri del viaggio
+        if (trip.isLoaded(TripFetchPlan.Part.BOOKINGS)) {
+            for (Booking booking : trip.getBookingRegister().getAllBookings()) {
+                markStale(booking.getTraveler(), notified);
+            }
+        }
+        if (trip.isLoaded(TripFetchPlan.Part.ASSIGNMENTS)) {
+            for (Assignment assignment : trip.getAssignmentRegister().getAllAssignments()) {
+                markStale(assignment.getGuide(), notified);
+            }
+        }
+        return notified.size();
+    }
+
+    private static void markStale(Notifiable recipient, Set<Long> notified) {
+        if (recipient != null && notified.contains(recipientKey(recipient.getRecipientType(), recipient.getRecipientId()))) {
+            recipient.getNotificationRegister().markStale();
+        }
+    }
+
+    // Crea una notifica senza salvarla né consegnarla, per chi la salva insieme ad altri dati;
+    // la sequenza viene assegnata dal DB nella stessa transazione del salvataggio
+    public Notification prepareNotification(Notifiable recipient, NotificationTemplate template, String... params) {
+        return new Notification(template, recipient, params);
+    }
+
+    // Consegna ai destinatari notifiche già salvate (quindi con la sequenza assegnata)
+    public void deliverAll(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            registerOf(notification.getRecipient()).addNotification(notification);
+        }
+    }
+
+    /**
+     * Carica nel registro del destinatario solo la finestra delle notifiche più recenti e il watermark
+     * di lettura: la memoria usata non dipende da quante notifiche l'utente ha ricevuto.
+     */
+    public void loadInbox(Notifiable recipient) {
+        NotificationRegister register = recipient.getNotificationRegister();
+        register.load(notificationDAO.getPageBefore(recipient, Long.MAX_VALUE, register.getCapacity()),
+                notificationDAO.getReadWatermark(recipient));
+    }
+
+    // Pagina di notifiche più vecchie di beforeSeq, letta dal DB senza entrare nel registro
+    public List<Notification> getOlderNotifications(Notifiable recipient, long beforeSeq, int limit) {
+        NotificationRegister register = registerOf(recipient);
+        List<Notification> page = notificationDAO.getPageBefore(recipient, beforeSeq, limit);
+        for (Notification notification : page) {
+            notification.setRead(notification.getSeq() <= register.getReadSeq());
+        }
+        return page;
     }
 
+    // Restituisce le non lette e le segna tutte come lette con un solo aggiornamento del watermark
     public List<Notification> getUnreadNotifications(Notifiable recipient) {
-        List<Notification> unread = recipient.getNotificationRegister().getNotifications().stream()
-                .filter(n -> !n.isRead())
-                .collect(Collectors.toList());
-        for (Notification n : unread) {
-            markAsRead(n);
+        NotificationRegister register = registerOf(recipient);
+        List<Notification> unread;
+        if (register.hasUnreadOutsideWindow()) {
+            unread = notificationDAO.getPageAfter(recipient, register.getReadSeq(), Integer.MAX_VALUE);
+        } else {
+            unread = register.getUnreadNotifications();
+        }
+        if (!unread.isEmpty()) {
+            long readSeq = register.markReadUpTo(unread.get(unread.size() - 1).getSeq());
+            notificationDAO.updateReadWatermark(recipient, readSeq);
         }
         return unread;
     }
 
     public Notification getNextUnreadNotification(Notifiable recipient) {
-        Notification next = recipient.getNotificationRegister().getNotifications().stream()
-                .filter(n -> !n.isRead())
-                .findFirst()
-                .orElse(null);
+        NotificationRegister register = registerOf(recipient);
+        Notification next;
+        if (register.hasUnreadOutsideWindow()) {
+            // La prossima non letta è già uscita dalla finestra: si legge dal DB
+            List<Notification> page = notificationDAO.getPageAfter(recipient, register.getReadSeq(), 1);
+            next = page.isEmpty() ? register.nextUnread() : page.get(0);
+            if (next != null) {
+                register.markReadUpTo(next.getSeq());
+                next.setRead(true);
+            }
+        } else {
+            next = register.nextUnread();
+        }
         if (next != null) {
-            markAsRead(next);
+            notificationDAO.updateReadWatermark(recipient, next.getSeq());
         }
         return next;
     }
 
+    public int getUnreadCount(Notifiable recipient) {
+        return registerOf(recipient).getNumUnread();
+    }
+
+    public void markAllAsRead(Notifiable recipient) {
+        NotificationRegister register = registerOf(recipient);
+        long previous = register.getReadSeq();
+        long readSeq = register.markAllAsRead();
+        if (readSeq != previous) {
+            notificationDAO.updateReadWatermark(recipient, readSeq);
+        }
+    }
+
+    // Segna come letta la notifica e tutte quelle precedenti dello stesso destinatario
     public void markAsRead(Notification notification) {
+        Notifiable recipient = notification.getRecipient();
+        NotificationRegister register = recipient.getNotificationRegister();
+        long previous = register.getReadSeq();
         notification.markAsRead();
-        notificationDAO.update(notification);
+        register.markReadUpTo(notification.getSeq()); // anche per notifiche fuori dalla finestra
+        if (register.getReadSeq() != previous) {
+            notificationDAO.updateReadWatermark(recipient, register.getReadSeq());
+        }
+    }
+
+    // Cancella dal DB le notifiche già lette più vecchie del periodo di conservazione
+    public int compactReadNotifications(Duration retention) {
+        return notificationDAO.deleteReadOlderThan(LocalDateTime.now().minus(retention));
+    }
+
+    // Il registro del destinatario; se il fan-out ha scritto nuove notifiche su DB, la finestra viene ricaricata.
+    // Non serve aspettare il thread di scrittura: le notifiche non ancora salvate restano nel registro come in attesa
+    private NotificationRegister registerOf(Notifiable recipient) {
+        NotificationRegister register = recipient.getNotificationRegister();
+        if (register.clearStale()) {
+            loadInbox(recipient);
+        }
+        return register;
+    }
+
+    private static long recipientKey(RecipientType type, int recipientId) {
+        return ((long) type.ordinal() << 32) | (recipientId & 0xFFFFFFFFL);
     }
 }
@@ -0,0 +1,253 @@
+package business.service;
+
+import dao.interfaces.NotificationDAO;
+import model.notification.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Scrittura asincrona (write-behind) delle notifiche.
+ * Le notifiche vanno in una coda limitata; un thread in background le salva a blocchi con
+ * {@link NotificationDAO#saveAll}, al più tardi dopo {@code maxLatencyMs} dall'arrivo della prima del blocco.
+ * Quando la coda è piena si aspetta ({@link OverflowPolicy#BLOCK}) oppure si scarta la notifica
+ * ({@link OverflowPolicy#DROP}); chi ha messo la notifica nel registro del destinatario deve toglierla
+ * se {@link #enqueue} restituisce false, perché non verrà mai salvata né riceverà una sequenza.
+ */
+public class NotificationWriter implements AutoCloseable {
+
+    public enum OverflowPolicy { BLOCK, DROP }
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 200;
+    public static final long DEFAULT_MAX_LATENCY_MS = 100;
+
+    private final NotificationDAO notificationDAO;
+    // Notifiche e marcatori di flush, in ordine di arrivo
+    private final BlockingQueue<Object> queue;
+    private final int batchSize;
+    private final long maxLatencyMs;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread worker;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Read lock per chi accoda, write lock per close(): dopo la chiusura nessuno può più accodare
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public NotificationWriter(NotificationDAO notificationDAO) {
+        this(notificationDAO, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_MAX_LATENCY_MS, OverflowPolicy.BLOCK);
+    }
+
+    public NotificationWriter(NotificationDAO notificationDAO, int capacity, int batchSize,
+                              long maxLatencyMs, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0 || batchSize <= 0 || maxLatencyMs <= 0) {
+            throw new IllegalArgumentException("capacity, batchSize and maxLatencyMs must be positive");
+        }
+        this.notificationDAO = notificationDAO;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxLatencyMs = maxLatencyMs;
+        this.overflowPolicy = overflowPolicy;
+        this.worker = new Thread(this::drainLoop, "notification-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Accoda una notifica da salvare. Restituisce false se è stata scartata per coda piena.
+     * Dopo {@link #close()} la notifica viene salvata direttamente dal chiamante.
+     */
+    public boolean enqueue(Notification notification) {
+        stateLock.readLock().lock();
+        try {
+            if (running) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    if (!queue.offer(notification)) {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                    return true;
+                }
+                try {
+                    queue.put(notification);
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    return false;
+                }
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        notificationDAO.save(notification);
+        notification.onSaved();
+        written.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Aspetta che sia salvato tutto quello che era in coda al momento della chiamata.
+     * Accoda un marcatore dietro l'ultima notifica e aspetta che il thread di scrittura lo raggiunga,
+     * quindi le notifiche accodate dopo da altri produttori non allungano l'attesa.
+     */
+    public void flush() {
+        FlushMarker marker = new FlushMarker();
+        stateLock.readLock().lock();
+        try {
+            if (running) {
+                queue.put(marker);
+            } else {
+                marker = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        if (marker == null) {
+            drainOnCaller();
+            return;
+        }
+        try {
+            while (!marker.done.await(maxLatencyMs, TimeUnit.MILLISECONDS)) {
+                if (!worker.isAlive()) {
+                    drainOnCaller();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Registra un hook che svuota la coda alla chiusura della JVM
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "notification-writer-shutdown"));
+    }
+
+    /**
+     * Ferma il thread di scrittura dopo che ha svuotato la coda, poi salva quello che fosse rimasto.
+     */
+    @Override
+    public void close() {
+        stateLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            worker.join(maxLatencyMs * 10 + 5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainOnCaller();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        List<Object> items = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(maxLatencyMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                items.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+                // Un flush in attesa chiude subito il blocco, senza aspettare maxLatencyMs
+                while (items.size() < batchSize && !hasMarker(items)) {
+                    if (queue.drainTo(items, batchSize - items.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Object next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    items.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            process(items);
+        }
+    }
+
+    // Usato quando il thread di scrittura non gira più (dopo close() o se è morto)
+    private void drainOnCaller() {
+        List<Object> items = new ArrayList<>(batchSize);
+        while (queue.drainTo(items, batchSize) > 0) {
+            process(items);
+        }
+    }
+
+    // Salva le notifiche in ordine; un marcatore viene rilasciato dopo che tutto ciò che lo precede è salvato
+    private void process(List<Object> items) {
+        List<Notification> batch = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item instanceof FlushMarker) {
+                write(batch);
+                ((FlushMarker) item).done.countDown();
+            } else {
+                batch.add((Notification) item);
+            }
+        }
+        write(batch);
+        items.clear();
+    }
+
+    private static boolean hasMarker(List<Object> items) {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (items.get(i) instanceof FlushMarker) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(List<Notification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            notificationDAO.saveAll(batch);
+            for (Notification notification : batch) {
+                notification.onSaved(); // le sequenze sono state assegnate nella transazione del salvataggio
+            }
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private static final class FlushMarker {
+        final CountDownLatch done = new CountDownLatch(1);
+    }
+}
@@ -3,27 +3,49 @@ package business.service;
 import model.review.Review;
 import model.review.ReviewRegister;
 import model.review.Reviewable;
+import model.user.Guide;
 import dao.interfaces.ReviewDAO;
 
 public class ReviewService {
 
     private final ReviewDAO reviewDAO;
     private final ReviewRegister reviewRegister;
+    private final GuideRankingIndex rankingIndex;
 
     public ReviewService(ReviewDAO reviewDAO, ReviewRegister reviewRegister) {
+        this(reviewDAO, reviewRegister, null);
+    }
+
+    public ReviewService(ReviewDAO reviewDAO, ReviewRegister reviewRegister, GuideRankingIndex rankingIndex) {
         this.reviewDAO = reviewDAO;
         this.reviewRegister = reviewRegister;
+        this.rankingIndex = rankingIndex;
     }
 
     public void addReview(Review review) {
-        reviewRegister.addReview(review);
+        record(review);
         reviewDAO.save(review);
+        updateRanking(review.getTarget());
     }
 
     public void createAndAddReview(int rating, String comment, Reviewable target, model.user.Traveler author) {
-        Review review = new Review(rating, comment, author, target);
-        reviewRegister.addReview(review);
+        addReview(new Review(rating, comment, author, target));
+    }
 
-        reviewDAO.save(review);
+    // Un solo registro per recensione, quello del destinatario: è lì che vivono gli aggregati usati dalla classifica.
+    // Spesso il servizio è costruito proprio con quel registro, aggiungerla a entrambi la conterebbe due volte
+    private void record(Review review) {
+        if (review.getTarget() != null) {
+            review.getTarget().addReview(review);
+        } else {
+            reviewRegister.addReview(review);
+        }
+    }
+
+    // Il rating di una guida è cambiato: aggiorna la sua posizione in classifica
+    private void updateRanking(Reviewable target) {
+        if (rankingIndex != null && target instanceof Guide) {
+            rankingIndex.update((Guide) target);
+        }
     }
 }
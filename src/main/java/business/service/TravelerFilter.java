@@ -2,10 +2,8 @@ package business.service;
 
 import model.user.Traveler;
 import model.trip.Trip;
-import model.booking.BookingRegister;
+import model.trip.TripCriteria;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.time.LocalDate;
 
 public class TravelerFilter implements TripFilterStrategy {
@@ -36,19 +34,17 @@ public class TravelerFilter implements TripFilterStrategy {
     }
 
     @Override
-    public List<Trip> filterTrips(List<Trip> allTrips) {
-        List<Trip> result = new ArrayList<>();
-        for (Trip trip : allTrips) {
-            BookingRegister bookingRegister = trip.getBookingRegister();
-            boolean hasFreeSpots = bookingRegister.getBookings().size() < bookingRegister.getMaxTrav();
-            boolean dateOK = (minDate == null || !trip.getDate().isBefore(minDate)) &&
-                             (maxDate == null || !trip.getDate().isAfter(maxDate));
-            boolean priceOK = (maxPrice == null || trip.getPrice() <= maxPrice);
-
-            if (hasFreeSpots && dateOK && priceOK) {
-                result.add(trip);
-            }
-        }
-        return result;
+    public boolean test(Trip trip) {
+        boolean hasFreeSpots = trip.getAvailableSpots() > 0;
+        boolean dateOK = (minDate == null || !trip.getDate().isBefore(minDate)) &&
+                         (maxDate == null || !trip.getDate().isAfter(maxDate));
+        boolean priceOK = (maxPrice == null || trip.getPrice() <= maxPrice);
+
+        return hasFreeSpots && dateOK && priceOK;
+    }
+
+    @Override
+    public TripCriteria toCriteria() {
+        return new TripCriteria(minDate, maxDate, maxPrice, true, null);
     }
 }
@@ -1,5 +1,7 @@
 package business.service;
 
+import dao.cache.EntityCaches;
+import dao.cache.IdentityMap;
 import dao.interfaces.TravelerDAO;
 import model.user.Traveler;
 import model.user.User;
@@ -15,15 +17,32 @@ public class TravelerService {
         travelerDAO.save(traveler);
     }
 
+    // Prima l'identity map della richiesta, poi la cache di processo, infine il DB
     public Traveler getTravelerById(int id) {
-        return travelerDAO.findById(id);
+        Traveler traveler = IdentityMap.get(Traveler.class, id);
+        if (traveler == null) {
+            traveler = EntityCaches.TRAVELERS.get(id);
+        }
+        if (traveler == null) {
+            // come in GuideService: niente cache se il profilo è stato invalidato durante la query
+            long generation = EntityCaches.TRAVELERS.generation();
+            traveler = travelerDAO.getById(id);
+            if (traveler == null) {
+                return null;
+            }
+            EntityCaches.TRAVELERS.putIfCurrent(id, traveler, generation);
+        }
+        return IdentityMap.register(Traveler.class, id, traveler);
     }
 
     public void updateTraveler(Traveler traveler) {
         travelerDAO.update(traveler);
+        EntityCaches.TRAVELERS.invalidate(traveler.getTravelerId());
     }
 
     public void deleteTraveler(int id) {
         travelerDAO.delete(id);
+        EntityCaches.TRAVELERS.invalidate(id);
+        IdentityMap.remove(Traveler.class, id);
     }
 }
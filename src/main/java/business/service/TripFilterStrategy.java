@@ -1,8 +1,26 @@
 package business.service;
 
 import model.trip.Trip;
+import model.trip.TripCriteria;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface TripFilterStrategy {
-    List<Trip> filterTrips(List<Trip> allTrips);
+    // true se il viaggio è visibile con questo filtro
+    boolean test(Trip trip);
+
+    default List<Trip> filterTrips(List<Trip> allTrips) {
+        List<Trip> result = new ArrayList<>();
+        for (Trip trip : allTrips) {
+            if (test(trip)) {
+                result.add(trip);
+            }
+        }
+        return result;
+    }
+
+    // Criteri da spingere nella query SQL; null se il filtro può essere applicato solo in memoria
+    default TripCriteria toCriteria() {
+        return null;
+    }
 }
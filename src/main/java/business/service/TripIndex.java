@@ -0,0 +1,257 @@
+package business.service;
+
+import model.trip.Trip;
+import model.trip.TripCriteria;
+import model.trip.TripPage;
+import model.user.Skill;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice in memoria del catalogo viaggi, mantenuto da TripService e BookingService.
+ * I viaggi sono indicizzati per data (per le ricerche su un intervallo di date), per prezzo
+ * e per numero di posti liberi, così una ricerca tocca solo i viaggi dell'intervallo richiesto.
+ */
+public class TripIndex {
+
+    // Sulle chiavi indicizzate, non sui campi attuali del viaggio
+    private static final Comparator<Entry> BY_DATE_AND_ID =
+            Comparator.comparing((Entry e) -> e.date).thenComparingInt(e -> e.trip.getTripId());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<LocalDate, NavigableMap<Integer, Trip>> byDate = new TreeMap<>();
+    private final NavigableMap<Double, Map<Integer, Trip>> byPrice = new TreeMap<>();
+    private final NavigableMap<Integer, Map<Integer, Trip>> byFreeSpots = new TreeMap<>();
+    // Valori con cui ogni viaggio è stato indicizzato, per poterlo togliere dai bucket anche dopo che è stato modificato
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Ricostruisce l'indice a partire dall'intero catalogo. Finché non è stato caricato
+     * l'indice non risponde alle ricerche (vedi {@link #isLoaded()}).
+     */
+    public void load(Iterator<Trip> trips) {
+        lock.writeLock().lock();
+        try {
+            byDate.clear();
+            byPrice.clear();
+            byFreeSpots.clear();
+            entries.clear();
+            while (trips.hasNext()) {
+                insert(trips.next());
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void add(Trip trip) {
+        lock.writeLock().lock();
+        try {
+            delete(trip.getTripId());
+            insert(trip);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reindicizza un viaggio di cui sono cambiati data, prezzo, capienza o skill richieste
+    public void update(Trip trip) {
+        add(trip);
+    }
+
+    public void remove(int tripId) {
+        lock.writeLock().lock();
+        try {
+            delete(tripId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Aggiorna solo il bucket dei posti liberi dopo una prenotazione o una cancellazione
+    public void updateFreeSpots(Trip trip) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(trip.getTripId());
+            if (entry == null) {
+                return;
+            }
+            int freeSpots = trip.getAvailableSpots();
+            if (freeSpots != entry.freeSpots) {
+                removeFrom(byFreeSpots, entry.freeSpots, entry.trip.getTripId());
+                entry.freeSpots = freeSpots;
+                byFreeSpots.computeIfAbsent(freeSpots, k -> new HashMap<>()).put(trip.getTripId(), entry.trip);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Trip get(int tripId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(tripId);
+            return entry != null ? entry.trip : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Trip> find(TripCriteria criteria) {
+        return findPage(criteria, null, 0, Integer.MAX_VALUE).getTrips();
+    }
+
+    /**
+     * Come {@link dao.interfaces.TripDAO#findPage}, ma servita dall'indice: i viaggi sono ordinati
+     * per (date, id) e la pagina parte dopo la chiave (afterDate, afterId).
+     */
+    public TripPage findPage(TripCriteria criteria, LocalDate afterDate, int afterId, int pageSize) {
+        lock.readLock().lock();
+        try {
+            LocalDate from = criteria.getMinDate();
+            if (afterDate != null && (from == null || afterDate.isAfter(from))) {
+                from = afterDate;
+            }
+            LocalDate to = criteria.getMaxDate();
+            boolean dateBounded = from != null || to != null;
+
+            // Con un intervallo di date si scorre solo quella fetta, già ordinata per (date, id)
+            if (dateBounded || (criteria.getMaxPrice() == null && !criteria.isOnlyWithFreeSpots())) {
+                NavigableMap<LocalDate, NavigableMap<Integer, Trip>> slice = byDate;
+                if (from != null && to != null) {
+                    if (to.isBefore(from)) {
+                        return new TripPage(new ArrayList<>(), false);
+                    }
+                    slice = byDate.subMap(from, true, to, true);
+                } else if (from != null) {
+                    slice = byDate.tailMap(from, true);
+                } else if (to != null) {
+                    slice = byDate.headMap(to, true);
+                }
+                List<Trip> trips = new ArrayList<>();
+                for (NavigableMap<Integer, Trip> sameDay : slice.values()) {
+                    for (Trip trip : sameDay.values()) {
+                        Entry entry = entries.get(trip.getTripId());
+                        if (isAfterKey(entry, afterDate, afterId) && matches(entry, criteria)) {
+                            if (trips.size() == pageSize) {
+                                return new TripPage(trips, true);
+                            }
+                            trips.add(trip);
+                        }
+                    }
+                }
+                return new TripPage(trips, false);
+            }
+
+            // Senza date si parte dal bucket più selettivo tra prezzo e posti liberi, poi si ordina
+            Collection<Map<Integer, Trip>> candidates;
+            if (criteria.getMaxPrice() != null) {
+                candidates = byPrice.headMap(criteria.getMaxPrice(), true).values();
+            } else {
+                candidates = byFreeSpots.tailMap(1, true).values();
+            }
+            List<Entry> matching = new ArrayList<>();
+            for (Map<Integer, Trip> bucket : candidates) {
+                for (Trip trip : bucket.values()) {
+                    Entry entry = entries.get(trip.getTripId());
+                    if (isAfterKey(entry, afterDate, afterId) && matches(entry, criteria)) {
+                        matching.add(entry);
+                    }
+                }
+            }
+            matching.sort(BY_DATE_AND_ID);
+            boolean hasNext = matching.size() > pageSize;
+            List<Trip> trips = new ArrayList<>();
+            for (Entry entry : hasNext ? matching.subList(0, pageSize) : matching) {
+                trips.add(entry.trip);
+            }
+            return new TripPage(trips, hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Trip trip) {
+        Entry entry = new Entry(trip);
+        entries.put(trip.getTripId(), entry);
+        byDate.computeIfAbsent(entry.date, k -> new TreeMap<>()).put(trip.getTripId(), trip);
+        byPrice.computeIfAbsent(entry.price, k -> new HashMap<>()).put(trip.getTripId(), trip);
+        byFreeSpots.computeIfAbsent(entry.freeSpots, k -> new HashMap<>()).put(trip.getTripId(), trip);
+    }
+
+    private void delete(int tripId) {
+        Entry entry = entries.remove(tripId);
+        if (entry == null) {
+            return;
+        }
+        removeFrom(byDate, entry.date, tripId);
+        removeFrom(byPrice, entry.price, tripId);
+        removeFrom(byFreeSpots, entry.freeSpots, tripId);
+    }
+
+    private static <K> void removeFrom(NavigableMap<K, ? extends Map<Integer, Trip>> index, K key, int tripId) {
+        Map<Integer, Trip> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(tripId);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static boolean isAfterKey(Entry entry, LocalDate afterDate, int afterId) {
+        return afterDate == null || entry.date.isAfter(afterDate)
+                || (entry.date.isEqual(afterDate) && entry.trip.getTripId() > afterId);
+    }
+
+    private static boolean matches(Entry entry, TripCriteria criteria) {
+        if (criteria.getMinDate() != null && entry.date.isBefore(criteria.getMinDate())) return false;
+        if (criteria.getMaxDate() != null && entry.date.isAfter(criteria.getMaxDate())) return false;
+        if (criteria.getMaxPrice() != null && entry.price > criteria.getMaxPrice()) return false;
+        if (criteria.isOnlyWithFreeSpots() && entry.freeSpots <= 0) return false;
+        return criteria.getAvailableSkillMask() == null
+                || Skill.covers(criteria.getAvailableSkillMask(), entry.requiredSkillMask);
+    }
+
+    private static final class Entry {
+        final Trip trip;
+        final LocalDate date;
+        final double price;
+        final long requiredSkillMask;
+        int freeSpots;
+
+        Entry(Trip trip) {
+            this.trip = trip;
+            this.date = trip.getDate();
+            this.price = trip.getPrice();
+            this.requiredSkillMask = trip.getRequiredSkillMask();
+            this.freeSpots = trip.getAvailableSpots();
+        }
+    }
+}
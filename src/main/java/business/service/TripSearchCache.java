@@ -0,0 +1,211 @@
+package business.service;
+
+import model.trip.Trip;
+import model.trip.TripCriteria;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Cache dei risultati delle ricerche di viaggi, con chiave i criteri di ricerca (TripCriteria).
+ * Per ogni ricerca tiene solo gli ID dei viaggi, nell'ordine del risultato.
+ *
+ * Le voci vengono invalidate con precisione quando un viaggio cambia (vedi {@link #onTripChanged},
+ * {@link #onTripRemoved}, {@link #onCapacityChanged}); il TTL è solo una rete di sicurezza.
+ * Una voce scaduta da meno di {@code staleMs} viene ancora servita mentre viene ricalcolata in background.
+ * Durante una ricerca la chiave contiene un segnaposto: il risultato sostituisce il segnaposto solo se
+ * nessuna invalidazione lo ha rimosso nel frattempo, altrimenti viene restituito senza memorizzarlo.
+ */
+public class TripSearchCache {
+
+    public static final long DEFAULT_TTL_MS = 60_000;
+    public static final long DEFAULT_STALE_MS = 30_000;
+    public static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final int maxEntries;
+    private final Map<TripCriteria, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "trip-search-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TripSearchCache() {
+        this(DEFAULT_TTL_MS, DEFAULT_STALE_MS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public TripSearchCache(long ttlMs, long staleMs, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMs);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Gli ID dei viaggi che soddisfano i criteri, dalla cache se possibile; altrimenti
+     * la ricerca viene eseguita con {@code search} e il risultato memorizzato.
+     */
+    public int[] lookup(TripCriteria criteria, Function<TripCriteria, List<Trip>> search) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(criteria);
+        if (entry != null && !entry.isPending()) {
+            long age = now - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.incrementAndGet();
+                return entry.ids;
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.incrementAndGet();
+                if (entry.refreshing.compareAndSet(false, true)) {
+                    refresher.execute(() -> refresh(criteria, entry, search));
+                }
+                return entry.ids;
+            }
+        }
+        misses.incrementAndGet();
+        Entry pending = new Entry();
+        reserve(criteria, pending);
+        Entry loaded;
+        try {
+            loaded = new Entry(search.apply(criteria));
+        } catch (RuntimeException e) {
+            entries.remove(criteria, pending);
+            throw e;
+        }
+        // Sostituzione atomica: fallisce se un'invalidazione (o un'altra ricerca) ha tolto il segnaposto
+        entries.replace(criteria, pending, loaded);
+        return loaded.ids;
+    }
+
+    // Viaggio aggiunto o modificato: cambiano sia i risultati che lo contenevano sia quelli in cui ora rientra.
+    // Di una ricerca in corso non si sa ancora il risultato, quindi il suo segnaposto viene sempre tolto
+    public void onTripChanged(Trip trip) {
+        int tripId = trip.getTripId();
+        removeIf((criteria, entry) -> entry.isPending() || entry.contains(tripId) || criteria.matches(trip));
+    }
+
+    public void onTripRemoved(int tripId) {
+        removeIf((criteria, entry) -> entry.isPending() || entry.contains(tripId));
+    }
+
+    // Prenotazione o cancellazione: cambia qualcosa solo se il viaggio entra o esce da un risultato
+    public void onCapacityChanged(Trip trip) {
+        int tripId = trip.getTripId();
+        removeIf((criteria, entry) -> criteria.isOnlyWithFreeSpots()
+                && (entry.isPending() || entry.contains(tripId) != criteria.matches(trip)));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public double getHitRate() {
+        long served = hits.get() + staleHits.get();
+        long lookups = served + misses.get();
+        return lookups == 0 ? 0.0 : (double) served / lookups;
+    }
+
+    private void refresh(TripCriteria criteria, Entry stale, Function<TripCriteria, List<Trip>> search) {
+        try {
+            Entry fresh = new Entry(search.apply(criteria));
+            // Se nel frattempo la voce è stata invalidata o sostituita non la si rimette
+            entries.replace(criteria, stale, fresh);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            stale.refreshing.set(false);
+        }
+    }
+
+    private void reserve(TripCriteria criteria, Entry entry) {
+        if (entries.size() >= maxEntries && !entries.containsKey(criteria)) {
+            evictOldest();
+        }
+        entries.put(criteria, entry);
+    }
+
+    private void evictOldest() {
+        Map.Entry<TripCriteria, Entry> oldest = null;
+        for (Map.Entry<TripCriteria, Entry> e : entries.entrySet()) {
+            if (oldest == null || e.getValue().loadedAt < oldest.getValue().loadedAt) {
+                oldest = e;
+            }
+        }
+        if (oldest != null) {
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    // remove(key, value): una voce sostituita dopo il test non viene tolta
+    private void removeIf(BiPredicate<TripCriteria, Entry> stale) {
+        for (Map.Entry<TripCriteria, Entry> e : entries.entrySet()) {
+            if (stale.test(e.getKey(), e.getValue()) && entries.remove(e.getKey(), e.getValue())) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final int[] ids;       // nell'ordine del risultato; null per il segnaposto di una ricerca in corso
+        final int[] sortedIds; // per cercare un viaggio con una ricerca binaria
+        final long loadedAt = System.nanoTime();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry() {
+            ids = null;
+            sortedIds = null;
+        }
+
+        Entry(List<Trip> trips) {
+            ids = new int[trips.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = trips.get(i).getTripId();
+            }
+            sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+        }
+
+        boolean isPending() {
+            return ids == null;
+        }
+
+        boolean contains(int tripId) {
+            return Arrays.binarySearch(sortedIds, tripId) >= 0;
+        }
+    }
+}
@@ -3,21 +3,41 @@ package business.service;
 import dao.interfaces.TripDAO;
 import model.trip.Trip;
 import model.notification.Notification;
+import model.notification.NotificationTemplate;
 import business.service.NotificationService;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class TripService {
     private final TripDAO tripDAO;
     private final NotificationService notificationService;
+    private final TripIndex tripIndex;
+    private final TripSearchCache searchCache; // null = ricerche non in cache
 
     public TripService(TripDAO tripDAO, NotificationService notificationService) {
+        this(tripDAO, notificationService, new TripIndex());
+    }
+
+    public TripService(TripDAO tripDAO, NotificationService notificationService, TripIndex tripIndex) {
+        this(tripDAO, notificationService, tripIndex, null);
+    }
+
+    public TripService(TripDAO tripDAO, NotificationService notificationService, TripIndex tripIndex,
+                       TripSearchCache searchCache) {
         this.tripDAO = tripDAO;
         this.notificationService = notificationService;
+        this.tripIndex = tripIndex;
+        this.searchCache = searchCache;
     }
 
     public void addTrip(Trip trip) {
         tripDAO.save(trip);
+        tripIndex.add(trip);
+        if (searchCache != null) {
+            searchCache.onTripChanged(trip);
+        }
     }
 
     public Trip getTripById(int id) {
@@ -30,23 +50,58 @@ public class TripService {
         }
 
         tripDAO.update(trip);
+        tripIndex.update(trip);
+        if (searchCache != null) {
+            searchCache.onTripChanged(trip);
+        }
 
-        // Notify guides
-        trip.getAssignmentRegister().getAllAssignments().forEach(assignment -> {
-            notificationService.sendNotification(assignment.getGuide(),"Trip details updated: " + trip.getTitle());
-        });
-
-        // Notify travelers
-        trip.getBookingRegister().getAllBookings().forEach(booking -> {
-            notificationService.sendNotification(booking.getTraveler(), "Trip details updated: " + trip.getTitle());
-        });
+        notificationService.notifyTripParticipants(trip, NotificationTemplate.TRIP_UPDATED, trip.getTitle());
     }
 
     public void deleteTrip(int id) {
-        tripDAO.delete(id);
+        tripDAO.deleteById(id);
+        tripIndex.remove(id);
+        if (searchCache != null) {
+            searchCache.onTripRemoved(id);
+        }
     }
 
     public List<Trip> getAllTrips() {
         return tripDAO.findAll();
     }
+
+    // Carica l'indice in memoria leggendo il catalogo in streaming
+    public void warmUpTripIndex() {
+        try (Stream<Trip> trips = tripDAO.streamAll()) {
+            tripIndex.load(trips.iterator());
+        }
+    }
+
+    public TripIndex getTripIndex() {
+        return tripIndex;
+    }
+
+    public TripSearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    // Viaggi per ID, nell'ordine dato; dall'indice se caricato, altrimenti con una sola query
+    public List<Trip> getTripsByIds(int[] ids) {
+        if (tripIndex.isLoaded()) {
+            List<Trip> trips = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                Trip trip = tripIndex.get(id);
+                if (trip != null) {
+                    trips.add(trip);
+                }
+            }
+            return trips;
+        }
+        return tripDAO.findByIds(ids);
+    }
+
+    // Scansione dell'intero catalogo senza caricarlo tutto in memoria; chiudere lo stream a fine uso
+    public Stream<Trip> streamAllTrips() {
+        return tripDAO.streamAll();
+    }
 }
\ No newline at end of file
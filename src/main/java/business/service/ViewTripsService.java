@@ -2,37 +2,104 @@ package business.service;
 
 import dao.interfaces.TripDAO;
 import model.trip.Trip;
+import model.trip.TripCriteria;
+import model.trip.TripPage;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import business.service.TripService;
 
+/**
+ * Servizio senza stato: il filtro viene passato a ogni chiamata, quindi una sola istanza
+ * può servire richieste concorrenti.
+ */
 public class ViewTripsService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final Comparator<Trip> BY_DATE_AND_ID =
+            Comparator.comparing(Trip::getDate).thenComparingInt(Trip::getTripId);
+
     private final TripDAO tripDAO;
     private final TripService tripService;
-    private TripFilterStrategy strategy;
 
     public ViewTripsService(TripDAO tripDAO, TripService tripService) {
         this.tripDAO = tripDAO;
         this.tripService = tripService;
     }
 
-    public void setStrategy(TripFilterStrategy strategy) {
-        this.strategy = strategy;
+    // strategy null = tutti i viaggi
+    public List<Trip> viewTrips(TripFilterStrategy strategy) {
+        TripCriteria criteria = strategy != null ? strategy.toCriteria() : null;
+        if (criteria == null) {
+            List<Trip> allTrips = tripDAO.findAll();  // carica tutti i viaggi
+            return strategy != null ? strategy.filterTrips(allTrips) : allTrips;
+        }
+        TripSearchCache cache = tripService.getSearchCache();
+        if (cache != null) {
+            // In cache ci sono solo gli ID: i viaggi si prendono dall'indice o con una sola query
+            return tripService.getTripsByIds(cache.lookup(criteria, this::search));
+        }
+        return search(criteria);
     }
 
-    public List<Trip> viewTrips() {
-        List<Trip> allTrips = tripDAO.getAll();  // carica tutti i viaggi
-        if (strategy != null) {
-            return strategy.filterTrips(allTrips);
+    private List<Trip> search(TripCriteria criteria) {
+        TripIndex index = tripService.getTripIndex();
+        if (index.isLoaded()) {
+            return index.find(criteria);
+        }
+        List<Trip> result = new ArrayList<>();
+        TripPage page = tripDAO.findPage(criteria, null, 0, DEFAULT_PAGE_SIZE);
+        result.addAll(page.getTrips());
+        while (page.hasNext()) {
+            page = tripDAO.findPage(criteria, page.getLastDate(), page.getLastId(), DEFAULT_PAGE_SIZE);
+            result.addAll(page.getTrips());
+        }
+        return result;
+    }
+
+    /**
+     * Restituisce la pagina di viaggi visibili successiva a {@code previous} (null per la prima pagina).
+     * La ricerca usa l'indice in memoria se è stato caricato, altrimenti la query SQL; se la strategia
+     * non può essere tradotta in criteri, il filtro e la paginazione vengono fatti sull'intero catalogo.
+     */
+    public TripPage viewTrips(TripFilterStrategy strategy, TripPage previous, int pageSize) {
+        LocalDate afterDate = previous != null ? previous.getLastDate() : null;
+        int afterId = previous != null ? previous.getLastId() : 0;
+
+        TripCriteria criteria = strategy != null ? strategy.toCriteria() : null;
+        if (criteria != null) {
+            TripIndex index = tripService.getTripIndex();
+            if (index.isLoaded()) {
+                return index.findPage(criteria, afterDate, afterId, pageSize);
+            }
+            return tripDAO.findPage(criteria, afterDate, afterId, pageSize);
+        }
+
+        List<Trip> allTrips = tripDAO.findAll();
+        List<Trip> visible = new ArrayList<>(strategy != null ? strategy.filterTrips(allTrips) : allTrips);
+        visible.sort(BY_DATE_AND_ID);
+        List<Trip> trips = new ArrayList<>();
+        boolean hasNext = false;
+        for (Trip trip : visible) {
+            boolean afterKey = afterDate == null || trip.getDate().isAfter(afterDate)
+                    || (trip.getDate().isEqual(afterDate) && trip.getTripId() > afterId);
+            if (!afterKey) continue;
+            if (trips.size() == pageSize) {
+                hasNext = true;
+                break;
+            }
+            trips.add(trip);
         }
-        return allTrips;
+        return new TripPage(trips, hasNext);
     }
 
-    public Trip viewTripDetails(int tripId) {
+    public Trip viewTripDetails(int tripId, TripFilterStrategy strategy) {
         Trip trip = tripService.getTripById(tripId);
         if (trip == null) return null;
 
-        List<Trip> visibleTrips = viewTrips();
-        if (visibleTrips.contains(trip)) {
+        // Basta verificare il singolo viaggio caricato, senza rileggere il catalogo
+        if (strategy == null || strategy.test(trip)) {
             return trip;
         }
         return null;
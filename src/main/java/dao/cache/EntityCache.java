@@ -0,0 +1,254 @@
+package dao.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache di entità limitata, con politica di ammissione in stile W-TinyLFU.
+ * Le nuove entrate passano da una piccola finestra LRU (~1% della capacità); quando ne escono
+ * entrano nella cache principale (LRU segmentata: probation + protected) solo se la loro frequenza
+ * stimata supera quella della vittima designata. Così un picco di letture una tantum
+ * non scaccia i profili letti spesso.
+ * Chi carica dal DB legge {@link #generation()} prima della query e inserisce con {@link #putIfCurrent}:
+ * se nel frattempo c'è stata un'invalidazione il valore letto può essere vecchio e non entra in cache.
+ * Thread-safe; le operazioni sono O(1), tranne {@link #invalidateIf}.
+ */
+public class EntityCache<K, V> {
+
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>();
+    private final FrequencySketch sketch;
+    // Incrementata a ogni invalidazione
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EntityCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        V value = window.remove(key);
+        if (value != null) {
+            window.put(key, value);
+        } else if ((value = protectedSegment.remove(key)) != null) {
+            protectedSegment.put(key, value);
+        } else if ((value = probation.remove(key)) != null) {
+            promote(key, value);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    // Come get, ma senza contare l'accesso né nella stima di frequenza né nelle statistiche
+    public synchronized V peek(K key) {
+        V value = window.get(key);
+        if (value == null) {
+            value = protectedSegment.get(key);
+        }
+        return value != null ? value : probation.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        sketch.increment(key);
+        if (window.containsKey(key)) {
+            window.put(key, value);
+            return;
+        }
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+        if (probation.remove(key) != null) {
+            promote(key, value);
+            return;
+        }
+        window.put(key, value);
+        if (window.size() > windowCapacity) {
+            Map.Entry<K, V> candidate = removeEldest(window);
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Inserisce solo se non ci sono state invalidazioni dopo la lettura di expectedGeneration
+    public synchronized boolean putIfCurrent(K key, V value, long expectedGeneration) {
+        if (generation != expectedGeneration) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (window.remove(key) == null && protectedSegment.remove(key) == null) {
+            probation.remove(key);
+        }
+    }
+
+    // Scansione completa: per le entrate che dipendono da un'altra entità (es. i profili di un utente)
+    public synchronized void invalidateIf(Predicate<? super V> predicate) {
+        generation++;
+        window.values().removeIf(predicate);
+        probation.values().removeIf(predicate);
+        protectedSegment.values().removeIf(predicate);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0.0 : (double) hits.get() / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{size=" + size() + ", hits=" + hits.get() + ", misses=" + misses.get()
+                + ", evictions=" + evictions.get() + ", hitRate=" + String.format("%.3f", getHitRate()) + '}';
+    }
+
+    // Un secondo accesso in probation sposta l'entrata in protected; l'eccedenza di protected torna in probation
+    private void promote(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedCapacity) {
+            Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private void admit(K candidateKey, V candidateValue) {
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidateKey, candidateValue);
+            return;
+        }
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victimKey = victimSegment.keySet().iterator().next();
+        evictions.incrementAndGet();
+        if (sketch.frequency(candidateKey) > sketch.frequency(victimKey)) {
+            victimSegment.remove(victimKey);
+            probation.put(candidateKey, candidateValue);
+        }
+        // altrimenti viene scartato il candidato
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> it = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = it.next();
+        Map.Entry<K, V> copy = Map.entry(eldest.getKey(), eldest.getValue());
+        it.remove();
+        return copy;
+    }
+
+    /**
+     * Count-min sketch con contatori saturati a 15 (come i contatori a 4 bit di TinyLFU).
+     * Ogni {@code 10 * capacity} incrementi tutti i contatori vengono dimezzati, così la
+     * frequenza stimata segue l'andamento recente degli accessi.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int i = index(hash, row);
+                if (table[row][i] < MAX_COUNT) {
+                    table[row][i]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 17;
+            h *= 0xED5AD4BB;
+            return h ^ (h >>> 11);
+        }
+    }
+}
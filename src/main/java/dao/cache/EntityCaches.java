@@ -0,0 +1,34 @@
+package dao.cache;
+
+import model.trip.Trip;
+import model.user.Guide;
+import model.user.Traveler;
+import model.user.User;
+
+/**
+ * Cache di processo condivise da DAO e servizi, una per tipo di entità.
+ * Le dimensioni si possono cambiare con le proprietà di sistema {@code cache.users.size},
+ * {@code cache.guides.size} e {@code cache.travelers.size}.
+ */
+public final class EntityCaches {
+
+    public static final EntityCache<Integer, User> USERS = new EntityCache<>(Integer.getInteger("cache.users.size", 10_000));
+    // email -> user_id, per servire findByEmail dalla cache degli utenti
+    public static final EntityCache<String, Integer> USER_IDS_BY_EMAIL = new EntityCache<>(Integer.getInteger("cache.users.size", 10_000));
+    public static final EntityCache<Integer, Guide> GUIDES = new EntityCache<>(Integer.getInteger("cache.guides.size", 5_000));
+    public static final EntityCache<Integer, Traveler> TRAVELERS = new EntityCache<>(Integer.getInteger("cache.travelers.size", 10_000));
+
+
+    // Letture in corso condivise tra richieste concorrenti per la stessa chiave (vedi SingleFlight)
+    public static final SingleFlight<Integer, Trip> TRIP_LOADS = new SingleFlight<>();
+    public static final SingleFlight<Integer, User> USER_LOADS = new SingleFlight<>();
+    public static final SingleFlight<String, User> USER_LOADS_BY_EMAIL = new SingleFlight<>();
+
+    private EntityCaches() {
+    }
+
+    public static String stats() {
+        return "users=" + USERS + ", guides=" + GUIDES + ", travelers=" + TRAVELERS
+                + ", tripLoads=" + TRIP_LOADS + ", userLoads=" + USER_LOADS + ", userLoadsByEmail=" + USER_LOADS_BY_EMAIL;
+    }
+}
@@ -0,0 +1,68 @@
+package dao.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Identity map con visibilità limitata a una richiesta (al thread che la apre).
+ * Dentro uno scope ogni entità letta dal DB esiste in una sola istanza per (tipo, id),
+ * quindi i confronti per identità nei registri funzionano anche se la stessa guida viene letta più volte.
+ * Fuori da uno scope i metodi non fanno nulla.
+ *
+ * <pre>
+ * try (IdentityMap.Scope scope = IdentityMap.open()) {
+ *     ... gestione della richiesta ...
+ * }
+ * </pre>
+ */
+public final class IdentityMap {
+
+    private static final ThreadLocal<Map<Class<?>, Map<Object, Object>>> CURRENT = new ThreadLocal<>();
+
+    private IdentityMap() {
+    }
+
+    // Apre uno scope sul thread corrente; gli scope annidati riusano quello esterno
+    public static Scope open() {
+        if (CURRENT.get() != null) {
+            return () -> { };
+        }
+        CURRENT.set(new HashMap<>());
+        return CURRENT::remove;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static <T> T get(Class<T> type, Object id) {
+        Map<Class<?>, Map<Object, Object>> entities = CURRENT.get();
+        if (entities == null) {
+            return null;
+        }
+        Map<Object, Object> byId = entities.get(type);
+        return byId != null ? type.cast(byId.get(id)) : null;
+    }
+
+    // Restituisce l'istanza già registrata per (tipo, id) se c'è, altrimenti registra quella data
+    public static <T> T register(Class<T> type, Object id, T entity) {
+        Map<Class<?>, Map<Object, Object>> entities = CURRENT.get();
+        if (entities == null || entity == null) {
+            return entity;
+        }
+        Object existing = entities.computeIfAbsent(type, k -> new HashMap<>()).putIfAbsent(id, entity);
+        return existing != null ? type.cast(existing) : entity;
+    }
+
+    public static void remove(Class<?> type, Object id) {
+        Map<Class<?>, Map<Object, Object>> entities = CURRENT.get();
+        if (entities != null && entities.containsKey(type)) {
+            entities.get(type).remove(id);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,82 @@
+package dao.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalescenza delle letture concorrenti ("single-flight"): finché il caricamento di una chiave
+ * è in corso, le altre richieste per la stessa chiave aspettano quel risultato invece di
+ * rifare la query. A caricamento finito la chiave viene rilasciata, quindi non fa da cache:
+ * le richieste successive ricaricano (o passano dalle cache di {@link EntityCaches}).
+ * Un'eccezione del caricamento viene propagata a tutti quelli che lo stavano aspettando.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V load(K key, Supplier<V> loader) {
+        calls.incrementAndGet();
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    // Quota delle chiamate servite da un caricamento già in corso
+    public double getCoalescingRatio() {
+        long total = calls.get();
+        return total == 0 ? 0.0 : (double) coalesced.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{calls=" + calls.get() + ", coalesced=" + coalesced.get()
+                + ", coalescingRatio=" + String.format("%.3f", getCoalescingRatio()) + '}';
+    }
+
+    private static <V> V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
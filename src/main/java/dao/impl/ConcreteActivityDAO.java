@@ -4,14 +4,39 @@ import dao.interfaces.ActivityDAO;
 import model.trip.Activity;
 import model.trip.Trip;
 
+import db.DBManager;
+
+import java.sql.*;
 import java.util.*;
 
 public class ConcreteActivityDAO implements ActivityDAO {
+
+    private final DBManager dbManager = DBManager.getInstance();
+
     @Override
     public List<Activity> getAllByTrip(Trip trip) {
         return new ArrayList<>();
     }
 
+    @Override
+    public Map<Integer, List<Activity>> getAllByTripIds(int[] tripIds) {
+        String sql = "SELECT id, trip_id, duration, description, name FROM activities WHERE trip_id = ANY(?) ORDER BY trip_id, id";
+        Map<Integer, List<Activity>> byTrip = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", Arrays.stream(tripIds).boxed().toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Activity activity = new Activity(rs.getInt("id"), rs.getInt("duration"),
+                        rs.getString("description"), rs.getString("name"));
+                byTrip.computeIfAbsent(rs.getInt("trip_id"), k -> new ArrayList<>()).add(activity);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return byTrip;
+    }
+
     @Override
     public void addToTrip(Trip trip, Activity activity) {
         // implementazione vuota per ora
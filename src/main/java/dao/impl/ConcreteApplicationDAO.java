@@ -6,23 +6,100 @@ import model.application.ApplicationStatus;
 import model.user.Guide;
 import model.trip.Trip;
 
+import db.DBManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ConcreteApplicationDAO implements ApplicationDAO {
 
+    private static final String SELECT = "SELECT ap.id, ap.trip_id, ap.cv, ap.status, " + ProfileRows.GUIDE_COLUMNS +
+            " FROM applications ap JOIN guides g ON g.id = ap.guide_id JOIN users u ON u.user_id = g.user_id ";
+
+    private final DBManager dbManager = DBManager.getInstance();
+
     @Override
     public Application getById(int id) {
-        return null;
+        Map<Integer, List<Application>> byTrip = query(SELECT + "WHERE ap.id = ?", stmt -> stmt.setInt(1, id));
+        List<Application> found = linkTrips(byTrip);
+        return found.isEmpty() ? null : found.get(0);
     }
 
     @Override
     public List<Application> getByTrip(Trip trip) {
-        return null;
+        List<Application> applications = getByTripIds(new int[]{trip.getTripId()}).getOrDefault(trip.getTripId(), new ArrayList<>());
+        for (Application application : applications) {
+            application.setTrip(trip);
+        }
+        return applications;
+    }
+
+    @Override
+    public Map<Integer, List<Application>> getByTripIds(int[] tripIds) {
+        return query(SELECT + "WHERE ap.trip_id = ANY(?) ORDER BY ap.trip_id, ap.id",
+                stmt -> stmt.setArray(1, stmt.getConnection().createArrayOf("integer", Arrays.stream(tripIds).boxed().toArray())));
     }
 
     @Override
     public List<Application> getByGuide(Guide guide) {
-        return null;
+        Map<Integer, List<Application>> byTrip = query(SELECT + "WHERE ap.guide_id = ? ORDER BY ap.id",
+                stmt -> stmt.setInt(1, guide.getGuideId()));
+        List<Application> applications = linkTrips(byTrip);
+        for (Application application : applications) {
+            application.setGuide(guide);
+        }
+        return applications;
+    }
+
+    // Candidature per trip id; il viaggio va collegato dal chiamante
+    private Map<Integer, List<Application>> query(String sql, Binder binder) {
+        Map<Integer, List<Application>> byTrip = new LinkedHashMap<>();
+        Map<Integer, Guide> guides = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Application application = new Application(rs.getInt("id"), rs.getString("cv"),
+                        ProfileRows.guide(rs, guides), null, ApplicationStatus.valueOf(rs.getString("status")));
+                byTrip.computeIfAbsent(rs.getInt("trip_id"), k -> new ArrayList<>()).add(application);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return byTrip;
+    }
+
+    // Collega i viaggi leggendoli tutti con una sola query (senza le loro collezioni)
+    private static List<Application> linkTrips(Map<Integer, List<Application>> byTrip) {
+        List<Application> applications = new ArrayList<>();
+        if (byTrip.isEmpty()) {
+            return applications;
+        }
+        int[] tripIds = byTrip.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Map<Integer, Trip> trips = new HashMap<>();
+        for (Trip trip : new ConcreteTripDAO().findByIds(tripIds)) {
+            trips.put(trip.getTripId(), trip);
+        }
+        for (Map.Entry<Integer, List<Application>> entry : byTrip.entrySet()) {
+            for (Application application : entry.getValue()) {
+                application.setTrip(trips.get(entry.getKey()));
+                applications.add(application);
+            }
+        }
+        return applications;
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
     }
 
     @Override
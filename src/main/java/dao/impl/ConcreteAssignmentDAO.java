@@ -0,0 +1,116 @@
+package dao.impl;
+
+import dao.interfaces.AssignmentDAO;
+import db.DBManager;
+import model.assignment.Assignment;
+import model.notification.Notification;
+import model.user.Guide;
+import model.trip.Trip;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ConcreteAssignmentDAO implements AssignmentDAO {
+
+    private final DBManager dbManager = DBManager.getInstance();
+
+    @Override
+    public void save(Assignment assignment) {
+        String sql = "INSERT INTO assignments (guide_id, trip_id, date) VALUES (?, ?, ?)";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, assignment.getGuide().getGuideId());
+            stmt.setInt(2, assignment.getTrip().getTripId());
+            stmt.setDate(3, Date.valueOf(assignment.getDate()));
+            stmt.executeUpdate();
+
+            ResultSet rs = stmt.getGeneratedKeys();
+            if (rs.next()) {
+                assignment.setAssignmentId(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void delete(Assignment assignment) {
+        String sql = "DELETE FROM assignments WHERE id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, assignment.getAssignmentId());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public List<Assignment> getByTrip(Trip trip) {
+        List<Assignment> assignments = getByTripIds(new int[]{trip.getTripId()}).getOrDefault(trip.getTripId(), new ArrayList<>());
+        for (Assignment assignment : assignments) {
+            assignment.setTrip(trip);
+        }
+        return assignments;
+    }
+
+    @Override
+    public Map<Integer, List<Assignment>> getByTripIds(int[] tripIds) {
+        String sql = "SELECT a.id, a.trip_id, a.date, " + ProfileRows.GUIDE_COLUMNS + " FROM assignments a " +
+                "JOIN guides g ON g.id = a.guide_id JOIN users u ON u.user_id = g.user_id " +
+                "WHERE a.trip_id = ANY(?) ORDER BY a.trip_id, a.id";
+        Map<Integer, List<Assignment>> byTrip = new HashMap<>();
+        Map<Integer, Guide> guides = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", Arrays.stream(tripIds).boxed().toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Assignment assignment = new Assignment(rs.getInt("id"), ProfileRows.guide(rs, guides), null,
+                        rs.getDate("date").toLocalDate());
+                byTrip.computeIfAbsent(rs.getInt("trip_id"), k -> new ArrayList<>()).add(assignment);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return byTrip;
+    }
+
+    @Override
+    public boolean saveAll(List<Assignment> assignments, List<Notification> notifications) {
+        String assignmentSql = "INSERT INTO assignments (guide_id, trip_id, date) VALUES (?, ?, ?)";
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insertAssignment = conn.prepareStatement(assignmentSql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Assignment assignment : assignments) {
+                    insertAssignment.setInt(1, assignment.getGuide().getGuideId());
+                    insertAssignment.setInt(2, assignment.getTrip().getTripId());
+                    insertAssignment.setDate(3, Date.valueOf(assignment.getDate()));
+                    insertAssignment.addBatch();
+                }
+                insertAssignment.executeBatch();
+                ResultSet assignmentKeys = insertAssignment.getGeneratedKeys();
+                for (int i = 0; i < assignments.size() && assignmentKeys.next(); i++) {
+                    assignments.get(i).setAssignmentId(assignmentKeys.getInt(1));
+                }
+
+                ConcreteNotificationDAO.insertAll(conn, notifications);
+
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+}
@@ -1,15 +1,32 @@
 package dao.impl;
 
 import dao.interfaces.BookingDAO;
+import db.DBManager;
 import model.booking.Booking;
 import model.user.Traveler;
 import model.trip.Trip;
 
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ConcreteBookingDAO implements BookingDAO {
 
+    private final DBManager dbManager = DBManager.getInstance();
+
+    @Override
+    public Booking getById(int bookingId) {
+        return null;
+    }
+
     @Override
     public Booking getByTravelerAndTrip(Traveler traveler, Trip trip) {
         return null;
@@ -25,13 +42,114 @@ public class ConcreteBookingDAO implements BookingDAO {
         return new ArrayList<>();
     }
 
+    @Override
+    public List<Booking> getByTrip(Trip trip) {
+        List<Booking> bookings = getByTripIds(new int[]{trip.getTripId()}).getOrDefault(trip.getTripId(), new ArrayList<>());
+        for (Booking booking : bookings) {
+            booking.setTrip(trip);
+        }
+        return bookings;
+    }
+
+    @Override
+    public Map<Integer, List<Booking>> getByTripIds(int[] tripIds) {
+        String sql = "SELECT b.id, b.trip_id, b.date, " + ProfileRows.TRAVELER_COLUMNS + " FROM bookings b " +
+                "JOIN travelers tr ON tr.id = b.traveler_id JOIN users u ON u.user_id = tr.user_id " +
+                "WHERE b.trip_id = ANY(?) ORDER BY b.trip_id, b.id";
+        Map<Integer, List<Booking>> byTrip = new HashMap<>();
+        Map<Integer, Traveler> travelers = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", Arrays.stream(tripIds).boxed().toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Booking booking = new Booking(rs.getInt("id"), ProfileRows.traveler(rs, travelers), null,
+                        rs.getDate("date").toLocalDate());
+                byTrip.computeIfAbsent(rs.getInt("trip_id"), k -> new ArrayList<>()).add(booking);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return byTrip;
+    }
+
     @Override
     public void save(Booking booking) {
         // logica di salvataggio
     }
 
     @Override
-    public void cancel(Traveler traveler, Trip trip) {
-        // logica di cancellazione
+    public boolean delete(Booking booking) {
+        // Un viaggiatore ha al più una prenotazione per viaggio: la riga si trova anche senza il suo id
+        String deleteSql = "DELETE FROM bookings WHERE trip_id = ? AND traveler_id = ?";
+        String releaseSql = "UPDATE trips SET booked = booked - ? WHERE id = ? AND booked >= ?";
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement delete = conn.prepareStatement(deleteSql);
+                 PreparedStatement release = conn.prepareStatement(releaseSql)) {
+                delete.setInt(1, booking.getTrip().getTripId());
+                delete.setInt(2, booking.getTraveler().getTravelerId());
+                int deleted = delete.executeUpdate();
+                if (deleted > 0) {
+                    release.setInt(1, deleted);
+                    release.setInt(2, booking.getTrip().getTripId());
+                    release.setInt(3, deleted);
+                    release.executeUpdate();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean saveGroup(Trip trip, List<Booking> bookings) {
+        String reserveSql = "UPDATE trips SET booked = booked + ? WHERE id = ? AND booked + ? <= max_trav";
+        // Con reWriteBatchedInserts=true nell'URL il driver invia il batch come un'unica INSERT multi-riga
+        String insertSql = "INSERT INTO bookings (traveler_id, trip_id, date) VALUES (?, ?, ?)";
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement reserve = conn.prepareStatement(reserveSql);
+                 PreparedStatement insert = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                reserve.setInt(1, bookings.size());
+                reserve.setInt(2, trip.getTripId());
+                reserve.setInt(3, bookings.size());
+                if (reserve.executeUpdate() != 1) {
+                    conn.rollback();
+                    return false;
+                }
+
+                for (Booking booking : bookings) {
+                    insert.setInt(1, booking.getTraveler().getTravelerId());
+                    insert.setInt(2, trip.getTripId());
+                    insert.setDate(3, Date.valueOf(booking.getDate()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                ResultSet keys = insert.getGeneratedKeys();
+                for (int i = 0; i < bookings.size() && keys.next(); i++) {
+                    bookings.get(i).setBookingId(keys.getInt(1));
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
     }
 }
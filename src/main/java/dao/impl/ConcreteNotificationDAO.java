@@ -0,0 +1,298 @@
+package dao.impl;
+
+import dao.interfaces.NotificationDAO;
+import db.DBManager;
+import model.notification.Notifiable;
+import model.notification.Notification;
+import model.notification.NotificationTemplate;
+import model.notification.RecipientType;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ConcreteNotificationDAO implements NotificationDAO {
+
+    private static final String COLUMNS = "(recipient_type, recipient_id, seq, template_id, params, read, created_at)";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+    // PostgreSQL accetta al massimo 32767 parametri per statement
+    private static final int MAX_ROWS_PER_INSERT = 32767 / 7;
+
+    private final DBManager dbManager = DBManager.getInstance();
+
+    @Override
+    public void save(Notification notification) {
+        List<Notification> single = new ArrayList<>();
+        single.add(notification);
+        saveAll(single);
+    }
+
+    @Override
+    public void saveAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) return;
+        List<Notification> unassigned = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.getSeq() == 0) {
+                unassigned.add(notification);
+            }
+        }
+        try (Connection conn = dbManager.getConnection()) {
+            // Sequenze e righe nella stessa transazione: un inserimento fallito non lascia buchi nelle sequenze
+            conn.setAutoCommit(false);
+            try {
+                insertAll(conn, notifications);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // le sequenze assegnate sono state annullate con la transazione
+            for (Notification notification : unassigned) {
+                notification.setSeq(0);
+            }
+        }
+    }
+
+    @Override
+    public void update(Notification notification) {
+        String sql = "UPDATE notifications SET template_id = ?, params = ?, read = ? WHERE id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setShort(1, (short) notification.getTemplate().getId());
+            stmt.setArray(2, conn.createArrayOf("text", notification.getParams()));
+            stmt.setBoolean(3, notification.isRead());
+            stmt.setInt(4, notification.getId());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public List<Notification> getByUserId(String userId) {
+        // notifiche ricevute dai profili guida e viaggiatore dell'utente; il destinatario va collegato dal chiamante
+        String sql = "SELECT n.* FROM notifications n " +
+                "WHERE (n.recipient_type = 'GUIDE' AND n.recipient_id IN (SELECT id FROM guides WHERE user_id = ?)) " +
+                "OR (n.recipient_type = 'TRAVELER' AND n.recipient_id IN (SELECT id FROM travelers WHERE user_id = ?)) " +
+                "ORDER BY n.recipient_type, n.recipient_id, n.seq";
+        List<Notification> notifications = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, Integer.parseInt(userId));
+            stmt.setInt(2, Integer.parseInt(userId));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                notifications.add(mapNotification(rs, null));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return notifications;
+    }
+
+    @Override
+    public List<Notification> getPageAfter(Notifiable recipient, long afterSeq, int limit) {
+        String sql = "SELECT id, seq, template_id, params, read, created_at FROM notifications " +
+                "WHERE recipient_type = ? AND recipient_id = ? AND seq > ? ORDER BY seq LIMIT ?";
+        return getPage(sql, recipient, afterSeq, limit, false);
+    }
+
+    @Override
+    public List<Notification> getPageBefore(Notifiable recipient, long beforeSeq, int limit) {
+        String sql = "SELECT id, seq, template_id, params, read, created_at FROM notifications " +
+                "WHERE recipient_type = ? AND recipient_id = ? AND seq < ? ORDER BY seq DESC LIMIT ?";
+        return getPage(sql, recipient, beforeSeq, limit, true);
+    }
+
+    private List<Notification> getPage(String sql, Notifiable recipient, long seq, int limit, boolean descending) {
+        List<Notification> notifications = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, recipient.getRecipientType().name());
+            stmt.setInt(2, recipient.getRecipientId());
+            stmt.setLong(3, seq);
+            stmt.setInt(4, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                notifications.add(mapNotification(rs, recipient));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        if (descending) {
+            Collections.reverse(notifications);
+        }
+        return notifications;
+    }
+
+    @Override
+    public int deleteReadOlderThan(LocalDateTime cutoff) {
+        // Solo notifiche sotto il watermark di lettura del destinatario: le non lette non vengono mai cancellate
+        String sql = "DELETE FROM notifications n USING notification_watermarks w " +
+                "WHERE w.recipient_type = n.recipient_type AND w.recipient_id = n.recipient_id " +
+                "AND n.seq <= w.read_seq AND n.created_at < ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public Map<RecipientType, List<Integer>> notifyTripParticipants(int tripId, NotificationTemplate template, String... params) {
+        // I destinatari vengono dalle prenotazioni e dagli assegnamenti del viaggio; la sequenza di ognuno
+        // si prende dal suo contatore, come per le notifiche singole (vedi allocateSeqs)
+        String sql = "WITH r AS (SELECT 'TRAVELER' AS recipient_type, b.traveler_id AS recipient_id FROM bookings b WHERE b.trip_id = ? " +
+                "UNION SELECT 'GUIDE', a.guide_id FROM assignments a WHERE a.trip_id = ?), " +
+                "c AS (INSERT INTO notification_counters (recipient_type, recipient_id, last_seq) " +
+                "SELECT recipient_type, recipient_id, 1 FROM r " +
+                "ON CONFLICT (recipient_type, recipient_id) DO UPDATE SET last_seq = notification_counters.last_seq + 1 " +
+                "RETURNING recipient_type, recipient_id, last_seq) " +
+                "INSERT INTO notifications (recipient_type, recipient_id, seq, template_id, params, read, created_at) " +
+                "SELECT c.recipient_type, c.recipient_id, c.last_seq, ?, ?, FALSE, now() FROM c " +
+                "RETURNING recipient_type, recipient_id";
+        Map<RecipientType, List<Integer>> recipients = new EnumMap<>(RecipientType.class);
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, tripId);
+            stmt.setInt(2, tripId);
+            stmt.setShort(3, (short) template.getId());
+            stmt.setArray(4, conn.createArrayOf("text", params));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                recipients.computeIfAbsent(RecipientType.valueOf(rs.getString("recipient_type")), k -> new ArrayList<>())
+                        .add(rs.getInt("recipient_id"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return recipients;
+    }
+
+    @Override
+    public void updateReadWatermark(Notifiable recipient, long readSeq) {
+        // Il watermark non torna mai indietro, anche con aggiornamenti concorrenti
+        String sql = "INSERT INTO notification_watermarks (recipient_type, recipient_id, read_seq) VALUES (?, ?, ?) " +
+                "ON CONFLICT (recipient_type, recipient_id) " +
+                "DO UPDATE SET read_seq = GREATEST(notification_watermarks.read_seq, EXCLUDED.read_seq)";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, recipient.getRecipientType().name());
+            stmt.setInt(2, recipient.getRecipientId());
+            stmt.setLong(3, readSeq);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public long getReadWatermark(Notifiable recipient) {
+        String sql = "SELECT read_seq FROM notification_watermarks WHERE recipient_type = ? AND recipient_id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, recipient.getRecipientType().name());
+            stmt.setInt(2, recipient.getRecipientId());
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return rs.getLong("read_seq");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    private static Notification mapNotification(ResultSet rs, Notifiable recipient) throws SQLException {
+        Array params = rs.getArray("params");
+        Notification notification = new Notification(rs.getInt("id"),
+                NotificationTemplate.fromId(rs.getShort("template_id")),
+                params != null ? (String[]) params.getArray() : new String[0],
+                recipient, rs.getBoolean("read"));
+        notification.setSeq(rs.getLong("seq"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        notification.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return notification;
+    }
+
+    /**
+     * Riserva {@code count} sequenze consecutive per il destinatario e restituisce l'ultima.
+     * Le sequenze si assegnano solo qui (e nel fan-out, sulla stessa riga): il lock sulla riga del contatore
+     * serializza chi scrive allo stesso destinatario, anche da istanze diverse dell'applicazione.
+     */
+    private static long allocateSeqs(Connection conn, String recipientType, int recipientId, int count) throws SQLException {
+        String sql = "INSERT INTO notification_counters (recipient_type, recipient_id, last_seq) VALUES (?, ?, ?) " +
+                "ON CONFLICT (recipient_type, recipient_id) " +
+                "DO UPDATE SET last_seq = notification_counters.last_seq + EXCLUDED.last_seq RETURNING last_seq";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, recipientType);
+            stmt.setInt(2, recipientId);
+            stmt.setInt(3, count);
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Inserisce le notifiche con INSERT multi-riga sulla connessione data (anche dentro una transazione
+     * aperta dal chiamante) e assegna gli ID generati. Le notifiche ancora senza sequenza la ricevono
+     * dal contatore del destinatario, sulla stessa connessione.
+     */
+    static void insertAll(Connection conn, List<Notification> notifications) throws SQLException {
+        Map<String, List<Notification>> unassigned = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            if (notification.getSeq() == 0) {
+                Notifiable recipient = notification.getRecipient();
+                unassigned.computeIfAbsent(recipient.getRecipientType().name() + ":" + recipient.getRecipientId(),
+                        k -> new ArrayList<>()).add(notification);
+            }
+        }
+        for (List<Notification> sameRecipient : unassigned.values()) {
+            Notifiable recipient = sameRecipient.get(0).getRecipient();
+            long last = allocateSeqs(conn, recipient.getRecipientType().name(), recipient.getRecipientId(), sameRecipient.size());
+            long seq = last - sameRecipient.size();
+            for (Notification notification : sameRecipient) {
+                notification.setSeq(++seq);
+            }
+        }
+
+        for (int from = 0; from < notifications.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Notification> chunk = notifications.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, notifications.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO notifications ").append(COLUMNS).append(" VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append(ROW_PLACEHOLDERS);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int p = 1;
+                for (Notification notification : chunk) {
+                    stmt.setString(p++, notification.getRecipient().getRecipientType().name());
+                    stmt.setInt(p++, notification.getRecipient().getRecipientId());
+                    stmt.setLong(p++, notification.getSeq());
+                    stmt.setShort(p++, (short) notification.getTemplate().getId());
+                    stmt.setArray(p++, conn.createArrayOf("text", notification.getParams()));
+                    stmt.setBoolean(p++, notification.isRead());
+                    stmt.setTimestamp(p++, Timestamp.valueOf(notification.getCreatedAt()));
+                }
+                stmt.executeUpdate();
+                ResultSet keys = stmt.getGeneratedKeys();
+                for (int i = 0; i < chunk.size() && keys.next(); i++) {
+                    chunk.get(i).setId(keys.getInt(1));
+                }
+            }
+        }
+    }
+}
@@ -2,13 +2,28 @@ package dao.impl;
 
 import dao.interfaces.ReviewDAO;
 import model.review.Review;
+import model.review.ReviewRegister;
 import model.review.Reviewable;
+import model.trip.Trip;
+import model.user.Guide;
 import model.user.Traveler;
 
+import db.DBManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ConcreteReviewDAO implements ReviewDAO {
+
+    private final DBManager dbManager = DBManager.getInstance();
+
     @Override
     public Review getById(int id) {
         return null;
@@ -19,6 +34,57 @@ public class ConcreteReviewDAO implements ReviewDAO {
         return new ArrayList<>();
     }
 
+    @Override
+    public int[] getRatingHistogram(Reviewable target) {
+        String column;
+        int targetId;
+        if (target instanceof Trip) {
+            column = "trip_id";
+            targetId = ((Trip) target).getTripId();
+        } else if (target instanceof Guide) {
+            column = "guide_id";
+            targetId = ((Guide) target).getGuideId();
+        } else {
+            throw new IllegalArgumentException("Unsupported review target: " + target);
+        }
+        String sql = "SELECT rating, COUNT(*) AS n FROM reviews WHERE " + column + " = ? GROUP BY rating";
+        int[] histogram = new int[ReviewRegister.MAX_STARS];
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, targetId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int rating = rs.getInt("rating");
+                if (rating >= 1 && rating <= ReviewRegister.MAX_STARS) {
+                    histogram[rating - 1] = rs.getInt("n");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return histogram;
+    }
+
+    @Override
+    public Map<Integer, int[]> getTripRatingHistograms(int[] tripIds) {
+        String sql = "SELECT trip_id, rating, COUNT(*) AS n FROM reviews WHERE trip_id = ANY(?) GROUP BY trip_id, rating";
+        Map<Integer, int[]> byTrip = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", Arrays.stream(tripIds).boxed().toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int rating = rs.getInt("rating");
+                if (rating >= 1 && rating <= ReviewRegister.MAX_STARS) {
+                    byTrip.computeIfAbsent(rs.getInt("trip_id"), k -> new int[ReviewRegister.MAX_STARS])[rating - 1] = rs.getInt("n");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return byTrip;
+    }
+
     @Override
     public List<Review> getByAuthor(Traveler author) {
         return new ArrayList<>();
@@ -1,57 +1,225 @@
 package dao.impl;
 
+import dao.cache.EntityCaches;
+import dao.interfaces.TripCursor;
 import dao.interfaces.TripDAO;
 import db.DBManager;
 import model.trip.Trip;
+import model.trip.TripCriteria;
+import model.trip.TripFetchPlan;
+import model.trip.TripPage;
+import model.trip.TripRegisterLoader;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ConcreteTripDAO implements TripDAO {
 
+    // Righe richieste a PostgreSQL per ogni round trip durante le scansioni in streaming
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final DBManager dbManager = DBManager.getInstance();
+    private final TripRegisterLoader registerLoader;
+    private final TripGraphLoader graphLoader;
+
+    public ConcreteTripDAO() {
+        this(new DaoTripRegisterLoader(), new TripGraphLoader());
+    }
+
+    public ConcreteTripDAO(TripRegisterLoader registerLoader, TripGraphLoader graphLoader) {
+        this.registerLoader = registerLoader;
+        this.graphLoader = graphLoader;
+    }
 
     @Override
     public Trip findById(int id) {
+        return findById(id, TripFetchPlan.LAZY);
+    }
+
+    @Override
+    public Trip findById(int id, TripFetchPlan plan) {
+        if (plan.isLazy()) {
+            // Richieste concorrenti per lo stesso viaggio (es. un viaggio in promozione) condividono una sola query
+            return EntityCaches.TRIP_LOADS.load(id, () -> queryById(id, plan));
+        }
+        return queryById(id, plan);
+    }
+
+    private Trip queryById(int id, TripFetchPlan plan) {
+        Trip trip = null;
         String sql = "SELECT * FROM trips WHERE id = ?";
         try (Connection conn = dbManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return new Trip(rs.getInt("id"), rs.getString("title"), rs.getString("description"));
+                trip = mapTrip(rs);
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return null;
+        // Le collezioni richieste si caricano dopo aver restituito la connessione
+        if (trip != null && !plan.isLazy()) {
+            graphLoader.load(Collections.singletonList(trip), plan);
+        }
+        return trip;
     }
 
     @Override
     public List<Trip> findAll() {
+        return findAll(TripFetchPlan.LAZY);
+    }
+
+    @Override
+    public List<Trip> findAll(TripFetchPlan plan) {
         List<Trip> trips = new ArrayList<>();
         String sql = "SELECT * FROM trips";
         try (Connection conn = dbManager.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                trips.add(new Trip(rs.getInt("id"), rs.getString("title"), rs.getString("description")));
+                trips.add(mapTrip(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        if (!plan.isLazy()) {
+            graphLoader.load(trips, plan); // una query per collezione, non una per viaggio
+        }
         return trips;
     }
 
+    @Override
+    public List<Trip> findByIds(int[] ids) {
+        Map<Integer, Trip> byId = new HashMap<>();
+        String sql = "SELECT * FROM trips WHERE id = ANY(?)";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", Arrays.stream(ids).boxed().toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Trip trip = mapTrip(rs);
+                byId.put(trip.getTripId(), trip);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        List<Trip> trips = new ArrayList<>(byId.size());
+        for (int id : ids) {
+            Trip trip = byId.get(id);
+            if (trip != null) {
+                trips.add(trip);
+            }
+        }
+        return trips;
+    }
+
+    @Override
+    public TripCursor openCursor() {
+        Connection conn = null;
+        try {
+            conn = dbManager.getConnection();
+            // Il driver PostgreSQL usa un cursore lato server solo fuori dall'autocommit
+            conn.setAutoCommit(false);
+            PreparedStatement stmt = conn.prepareStatement("SELECT * FROM trips ORDER BY date, id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return new JdbcTripCursor(conn, stmt, stmt.executeQuery());
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw new RuntimeException("Errore nell'apertura del cursore sui viaggi", e);
+        }
+    }
+
+    @Override
+    public Stream<Trip> streamAll() {
+        TripCursor cursor = openCursor();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    @Override
+    public TripPage findPage(TripCriteria criteria, LocalDate afterDate, int afterId, int pageSize) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM trips t WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (criteria.getMinDate() != null) {
+            sql.append(" AND t.date >= ?");
+            params.add(Date.valueOf(criteria.getMinDate()));
+        }
+        if (criteria.getMaxDate() != null) {
+            sql.append(" AND t.date <= ?");
+            params.add(Date.valueOf(criteria.getMaxDate()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            sql.append(" AND t.price <= ?");
+            params.add(criteria.getMaxPrice());
+        }
+        if (criteria.isOnlyWithFreeSpots()) {
+            sql.append(" AND t.booked < t.max_trav");
+        }
+        if (criteria.getAvailableSkillMask() != null) {
+            // nessuna skill richiesta dal viaggio fuori dalla maschera di chi cerca
+            sql.append(" AND (t.required_skills & ~CAST(? AS INTEGER)) = 0");
+            params.add(criteria.getAvailableSkillMask().intValue());
+        }
+        if (afterDate != null) {
+            sql.append(" AND (t.date, t.id) > (?, ?)");
+            params.add(Date.valueOf(afterDate));
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY t.date, t.id LIMIT ?");
+        params.add(pageSize + 1); // una riga in più per sapere se esiste la pagina successiva
+
+        List<Trip> trips = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                trips.add(mapTrip(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        boolean hasNext = trips.size() > pageSize;
+        if (hasNext) {
+            trips.remove(pageSize);
+        }
+        return new TripPage(trips, hasNext);
+    }
+
     @Override
     public void save(Trip trip) {
-        String sql = "INSERT INTO trips (id, title, description) VALUES (?, ?, ?)";
+        String sql = "INSERT INTO trips (id, title, description, price, date, min_trav, max_trav, max_guides, required_skills) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = dbManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, trip.getId());
+            stmt.setInt(1, trip.getTripId());
             stmt.setString(2, trip.getTitle());
             stmt.setString(3, trip.getDescription());
+            stmt.setDouble(4, trip.getPrice());
+            stmt.setDate(5, Date.valueOf(trip.getDate()));
+            stmt.setInt(6, trip.getMinTrav());
+            stmt.setInt(7, trip.getMaxTrav());
+            stmt.setInt(8, trip.getMaxGuides());
+            stmt.setInt(9, (int) trip.getRequiredSkillMask());
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -60,12 +228,18 @@ public class ConcreteTripDAO implements TripDAO {
 
     @Override
     public void update(Trip trip) {
-        String sql = "UPDATE trips SET title = ?, description = ? WHERE id = ?";
+        String sql = "UPDATE trips SET title = ?, description = ?, price = ?, date = ?, min_trav = ?, max_trav = ?, max_guides = ?, required_skills = ? WHERE id = ?";
         try (Connection conn = dbManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, trip.getTitle());
             stmt.setString(2, trip.getDescription());
-            stmt.setInt(3, trip.getId());
+            stmt.setDouble(3, trip.getPrice());
+            stmt.setDate(4, Date.valueOf(trip.getDate()));
+            stmt.setInt(5, trip.getMinTrav());
+            stmt.setInt(6, trip.getMaxTrav());
+            stmt.setInt(7, trip.getMaxGuides());
+            stmt.setInt(8, (int) trip.getRequiredSkillMask());
+            stmt.setInt(9, trip.getTripId());
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -83,4 +257,82 @@ public class ConcreteTripDAO implements TripDAO {
             e.printStackTrace();
         }
     }
+
+    private Trip mapTrip(ResultSet rs) throws SQLException {
+        Trip trip = new Trip(
+                rs.getInt("id"),
+                rs.getString("title"),
+                rs.getString("description"),
+                rs.getDouble("price"),
+                rs.getDate("date").toLocalDate(),
+                rs.getInt("min_trav"),
+                rs.getInt("max_trav"),
+                rs.getInt("max_guides")
+        );
+        trip.setRequiredSkillMask(rs.getInt("required_skills"));
+        trip.setBookedSeats(rs.getInt("booked"));
+        trip.setRegisterLoader(registerLoader);
+        return trip;
+    }
+
+    private class JdbcTripCursor implements TripCursor {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private Trip next;
+        private boolean closed;
+
+        JdbcTripCursor(Connection conn, PreparedStatement stmt, ResultSet rs) {
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (closed) return false;
+            try {
+                if (rs.next()) {
+                    next = mapTrip(rs);
+                    return true;
+                }
+            } catch (SQLException e) {
+                close();
+                throw new RuntimeException("Errore durante la lettura dei viaggi", e);
+            }
+            close(); // fine dei risultati: restituisce subito la connessione al pool
+            return false;
+        }
+
+        @Override
+        public Trip next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Trip trip = next;
+            next = null;
+            return trip;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                rs.close();
+                stmt.close();
+                conn.commit();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            } finally {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package dao.impl;
 
 import dao.interfaces.UserDAO;
+import dao.cache.EntityCaches;
+import dao.cache.IdentityMap;
 import db.DBManager;
 import model.user.User;
 
@@ -15,7 +17,7 @@ public class ConcreteUserDAO implements UserDAO {
         String sql = "INSERT INTO users (username, email, password) VALUES (?, ?, ?)";
         try (Connection conn = db.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, user.getUsername());
+            stmt.setString(1, user.getUserName());
             stmt.setString(2, user.getEmail());
             stmt.setString(3, user.getPassword());
             stmt.executeUpdate();
@@ -31,44 +33,30 @@ public class ConcreteUserDAO implements UserDAO {
 
     @Override
     public User findByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE email = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new User(
-                        rs.getInt("user_id"),
-                        rs.getString("username"),
-                        rs.getString("email"),
-                        rs.getString("password")
-                );
+        Integer cachedId = EntityCaches.USER_IDS_BY_EMAIL.get(email);
+        if (cachedId != null) {
+            User cached = EntityCaches.USERS.get(cachedId);
+            // la mappatura può essere vecchia se l'email è cambiata
+            if (cached != null && email.equals(cached.getEmail())) {
+                return IdentityMap.register(User.class, cached.getUserId(), cached);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return null;
+        User loaded = EntityCaches.USER_LOADS_BY_EMAIL.load(email, () -> queryByEmail(email));
+        return loaded != null ? IdentityMap.register(User.class, loaded.getUserId(), loaded) : null;
     }
 
     @Override
     public User findById(int id) {
-        String sql = "SELECT * FROM users WHERE user_id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new User(
-                        rs.getInt("user_id"),
-                        rs.getString("username"),
-                        rs.getString("email"),
-                        rs.getString("password")
-                );
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        User scoped = IdentityMap.get(User.class, id);
+        if (scoped != null) {
+            return scoped;
         }
-        return null;
+        User cached = EntityCaches.USERS.get(id);
+        if (cached != null) {
+            return IdentityMap.register(User.class, id, cached);
+        }
+        // Richieste concorrenti per lo stesso utente condividono una sola query
+        return IdentityMap.register(User.class, id, EntityCaches.USER_LOADS.load(id, () -> queryById(id)));
     }
 
     @Override
@@ -76,13 +64,15 @@ public class ConcreteUserDAO implements UserDAO {
         String sql = "UPDATE users SET username = ?, email = ?, password = ? WHERE user_id = ?";
         try (Connection conn = db.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, user.getUsername());
+            stmt.setString(1, user.getUserName());
             stmt.setString(2, user.getEmail());
             stmt.setString(3, user.getPassword());
             stmt.setInt(4, user.getUserId());
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            invalidate(user);
         }
     }
 
@@ -95,6 +85,62 @@ public class ConcreteUserDAO implements UserDAO {
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            invalidate(user);
+            IdentityMap.remove(User.class, user.getUserId());
+        }
+    }
+
+    // Anche guide e viaggiatori in cache contengono l'utente e mostrerebbero username/email vecchi
+    private static void invalidate(User user) {
+        int userId = user.getUserId();
+        EntityCaches.USERS.invalidate(userId);
+        EntityCaches.USER_IDS_BY_EMAIL.invalidate(user.getEmail());
+        EntityCaches.GUIDES.invalidateIf(guide -> guide.getOwner() != null && guide.getOwner().getUserId() == userId);
+        EntityCaches.TRAVELERS.invalidateIf(traveler -> traveler.getOwner() != null && traveler.getOwner().getUserId() == userId);
+    }
+
+    private User queryById(int id) {
+        String sql = "SELECT * FROM users WHERE user_id = ?";
+        long usersGeneration = EntityCaches.USERS.generation();
+        long emailsGeneration = EntityCaches.USER_IDS_BY_EMAIL.generation();
+        try (Connection conn = db.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return mapUser(rs, usersGeneration, emailsGeneration);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
+        return null;
+    }
+
+    private User queryByEmail(String email) {
+        String sql = "SELECT * FROM users WHERE email = ?";
+        long usersGeneration = EntityCaches.USERS.generation();
+        long emailsGeneration = EntityCaches.USER_IDS_BY_EMAIL.generation();
+        try (Connection conn = db.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, email);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return mapUser(rs, usersGeneration, emailsGeneration);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // Il risultato può essere condiviso da più richieste: ognuna lo registra poi nella propria IdentityMap.
+    // Va in cache solo se nessun update/delete ha invalidato le cache dall'inizio della query
+    private User mapUser(ResultSet rs, long usersGeneration, long emailsGeneration) throws SQLException {
+        User user = new User(rs.getString("username"), rs.getString("email"), rs.getString("password"));
+        user.setUserId(rs.getInt("user_id"));
+        EntityCaches.USERS.putIfCurrent(user.getUserId(), user, usersGeneration);
+        EntityCaches.USER_IDS_BY_EMAIL.putIfCurrent(user.getEmail(), user.getUserId(), emailsGeneration);
+        return user;
     }
 }
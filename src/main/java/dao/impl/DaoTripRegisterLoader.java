@@ -0,0 +1,67 @@
+package dao.impl;
+
+import dao.interfaces.ActivityDAO;
+import dao.interfaces.ApplicationDAO;
+import dao.interfaces.AssignmentDAO;
+import dao.interfaces.BookingDAO;
+import dao.interfaces.ReviewDAO;
+import model.application.Application;
+import model.assignment.Assignment;
+import model.booking.Booking;
+import model.review.Review;
+import model.trip.Activity;
+import model.trip.Trip;
+import model.trip.TripRegisterLoader;
+
+import java.util.List;
+
+/**
+ * Caricamento lazy delle collezioni di un viaggio, una query per collezione al primo accesso.
+ */
+public class DaoTripRegisterLoader implements TripRegisterLoader {
+
+    private final ActivityDAO activityDAO;
+    private final ReviewDAO reviewDAO;
+    private final BookingDAO bookingDAO;
+    private final AssignmentDAO assignmentDAO;
+    private final ApplicationDAO applicationDAO;
+
+    public DaoTripRegisterLoader() {
+        this(new ConcreteActivityDAO(), new ConcreteReviewDAO(), new ConcreteBookingDAO(),
+                new ConcreteAssignmentDAO(), new ConcreteApplicationDAO());
+    }
+
+    public DaoTripRegisterLoader(ActivityDAO activityDAO, ReviewDAO reviewDAO, BookingDAO bookingDAO,
+                                 AssignmentDAO assignmentDAO, ApplicationDAO applicationDAO) {
+        this.activityDAO = activityDAO;
+        this.reviewDAO = reviewDAO;
+        this.bookingDAO = bookingDAO;
+        this.assignmentDAO = assignmentDAO;
+        this.applicationDAO = applicationDAO;
+    }
+
+    @Override
+    public List<Activity> loadActivities(Trip trip) {
+        return activityDAO.getAllByTrip(trip);
+    }
+
+    @Override
+    public List<Review> loadReviews(Trip trip) {
+        return reviewDAO.getByTarget(trip);
+    }
+
+    @Override
+    public List<Booking> loadBookings(Trip trip) {
+        return bookingDAO.getByTrip(trip);
+    }
+
+    @Override
+    public List<Assignment> loadAssignments(Trip trip) {
+        return assignmentDAO.getByTrip(trip);
+    }
+
+    @Override
+    public List<Application> loadApplications(Trip trip) {
+        return applicationDAO.getByTrip(trip);
+    }
+}
@@ -0,0 +1,79 @@
+package dao.impl;
+
+import dao.cache.EntityCaches;
+import dao.cache.IdentityMap;
+import model.user.Guide;
+import model.user.Traveler;
+import model.user.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Costruzione di guide e viaggiatori dalle colonne di una join con users, per le query che li
+ * leggono insieme ad altre entità. Ogni profilo viene risolto una sola volta per query, usando
+ * l'istanza della richiesta ({@link IdentityMap}) o della cache di processo quando c'è, così i registri
+ * caricati in blocco contengono le stesse istanze restituite dai servizi.
+ * Colonne attese: user_id, username, email, più guide_id e guide_skills oppure traveler_id.
+ */
+final class ProfileRows {
+
+    static final String GUIDE_COLUMNS = "g.id AS guide_id, g.skills AS guide_skills, u.user_id, u.username, u.email";
+    static final String TRAVELER_COLUMNS = "tr.id AS traveler_id, u.user_id, u.username, u.email";
+
+    private ProfileRows() {
+    }
+
+    static Guide guide(ResultSet rs, Map<Integer, Guide> seen) throws SQLException {
+        int guideId = rs.getInt("guide_id");
+        Guide guide = seen.get(guideId);
+        if (guide == null) {
+            guide = IdentityMap.get(Guide.class, guideId);
+            if (guide == null) {
+                guide = EntityCaches.GUIDES.get(guideId);
+            }
+            if (guide == null) {
+                guide = new Guide(user(rs));
+                guide.setGuideId(guideId);
+                guide.setSkillMask(rs.getLong("guide_skills"));
+            }
+            guide = IdentityMap.register(Guide.class, guideId, guide);
+            seen.put(guideId, guide);
+        }
+        return guide;
+    }
+
+    static Traveler traveler(ResultSet rs, Map<Integer, Traveler> seen) throws SQLException {
+        int travelerId = rs.getInt("traveler_id");
+        Traveler traveler = seen.get(travelerId);
+        if (traveler == null) {
+            traveler = IdentityMap.get(Traveler.class, travelerId);
+            if (traveler == null) {
+                traveler = EntityCaches.TRAVELERS.get(travelerId);
+            }
+            if (traveler == null) {
+                traveler = new Traveler(user(rs));
+                traveler.setTravelerId(travelerId);
+            }
+            traveler = IdentityMap.register(Traveler.class, travelerId, traveler);
+            seen.put(travelerId, traveler);
+        }
+        return traveler;
+    }
+
+    // Utente già noto se c'è; altrimenti uno costruito dalla riga, senza password (non viene letta).
+    // Per questo i profili costruiti qui non vengono messi nelle cache di processo né l'utente nell'identity map
+    private static User user(ResultSet rs) throws SQLException {
+        int userId = rs.getInt("user_id");
+        User user = IdentityMap.get(User.class, userId);
+        if (user == null) {
+            user = EntityCaches.USERS.get(userId);
+        }
+        if (user == null) {
+            user = new User(rs.getString("username"), rs.getString("email"), null);
+            user.setUserId(userId);
+        }
+        return user;
+    }
+}
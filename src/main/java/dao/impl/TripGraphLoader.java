@@ -0,0 +1,138 @@
+package dao.impl;
+
+import dao.interfaces.ActivityDAO;
+import dao.interfaces.ApplicationDAO;
+import dao.interfaces.AssignmentDAO;
+import dao.interfaces.BookingDAO;
+import dao.interfaces.ReviewDAO;
+import model.application.Application;
+import model.application.ApplicationRegister;
+import model.assignment.Assignment;
+import model.assignment.AssignmentRegister;
+import model.booking.Booking;
+import model.booking.BookingRegister;
+import model.review.ReviewRegister;
+import model.trip.Activity;
+import model.trip.Trip;
+import model.trip.TripFetchPlan;
+import model.trip.TripFetchPlan.Part;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carica le collezioni di un gruppo di viaggi con una query per collezione (WHERE trip_id = ANY(?)),
+ * invece di una query per viaggio, e le collega ai rispettivi Trip.
+ * Le recensioni sono caricate solo come istogramma dei voti, sufficiente per rating e conteggi nelle liste:
+ * un viaggio caricato con REVIEWS nel piano ha un ReviewRegister senza oggetti Review
+ * ({@link ReviewRegister#isReviewsLoaded()} è false), a differenza del caricamento lazy di {@link Trip#getReviewRegister()}.
+ */
+public class TripGraphLoader {
+
+    private final ActivityDAO activityDAO;
+    private final ReviewDAO reviewDAO;
+    private final BookingDAO bookingDAO;
+    private final AssignmentDAO assignmentDAO;
+    private final ApplicationDAO applicationDAO;
+
+    public TripGraphLoader() {
+        this(new ConcreteActivityDAO(), new ConcreteReviewDAO(), new ConcreteBookingDAO(),
+                new ConcreteAssignmentDAO(), new ConcreteApplicationDAO());
+    }
+
+    public TripGraphLoader(ActivityDAO activityDAO, ReviewDAO reviewDAO, BookingDAO bookingDAO,
+                           AssignmentDAO assignmentDAO, ApplicationDAO applicationDAO) {
+        this.activityDAO = activityDAO;
+        this.reviewDAO = reviewDAO;
+        this.bookingDAO = bookingDAO;
+        this.assignmentDAO = assignmentDAO;
+        this.applicationDAO = applicationDAO;
+    }
+
+    // Al più una query per ogni parte del piano, qualunque sia il numero di viaggi
+    public void load(List<Trip> trips, TripFetchPlan plan) {
+        for (Part part : plan.getParts()) {
+            List<Trip> pending = new ArrayList<>();
+            for (Trip trip : trips) {
+                if (trip.getTripId() != 0 && !trip.isLoaded(part)) {
+                    pending.add(trip);
+                }
+            }
+            if (!pending.isEmpty()) {
+                load(pending, part, tripIds(pending));
+            }
+        }
+    }
+
+    private void load(List<Trip> trips, Part part, int[] tripIds) {
+        switch (part) {
+            case ACTIVITIES: {
+                Map<Integer, List<Activity>> byTrip = activityDAO.getAllByTripIds(tripIds);
+                for (Trip trip : trips) {
+                    trip.setPlannedActivities(new ArrayList<>(forTrip(byTrip, trip)));
+                }
+                break;
+            }
+            case REVIEWS: {
+                // Solo riepilogo: vedi TripFetchPlan.Part
+                Map<Integer, int[]> byTrip = reviewDAO.getTripRatingHistograms(tripIds);
+                for (Trip trip : trips) {
+                    int[] histogram = byTrip.get(trip.getTripId());
+                    trip.setReviews(new ReviewRegister(histogram != null ? histogram : new int[ReviewRegister.MAX_STARS]));
+                }
+                break;
+            }
+            case BOOKINGS: {
+                Map<Integer, List<Booking>> byTrip = bookingDAO.getByTripIds(tripIds);
+                for (Trip trip : trips) {
+                    List<Booking> bookings = forTrip(byTrip, trip);
+                    for (Booking booking : bookings) {
+                        booking.setTrip(trip);
+                    }
+                    BookingRegister register = new BookingRegister(trip.getMinTrav(), trip.getMaxTrav());
+                    register.addBookings(bookings);
+                    register.setBookedSeats(trip.getBookedSeats());
+                    trip.setBookingRegister(register);
+                }
+                break;
+            }
+            case ASSIGNMENTS: {
+                Map<Integer, List<Assignment>> byTrip = assignmentDAO.getByTripIds(tripIds);
+                for (Trip trip : trips) {
+                    List<Assignment> assignments = new ArrayList<>(forTrip(byTrip, trip));
+                    for (Assignment assignment : assignments) {
+                        assignment.setTrip(trip);
+                    }
+                    trip.setAssignmentRegister(new AssignmentRegister(assignments, trip.getMaxGuides()));
+                }
+                break;
+            }
+            case APPLICATIONS: {
+                Map<Integer, List<Application>> byTrip = applicationDAO.getByTripIds(tripIds);
+                for (Trip trip : trips) {
+                    List<Application> applications = forTrip(byTrip, trip);
+                    for (Application application : applications) {
+                        application.setTrip(trip);
+                    }
+                    trip.setApplicationRegister(new ApplicationRegister(applications));
+                }
+                break;
+            }
+        }
+    }
+
+    private static <T> List<T> forTrip(Map<Integer, List<T>> byTrip, Trip trip) {
+        List<T> items = byTrip.get(trip.getTripId());
+        return items != null ? items : Collections.emptyList();
+    }
+
+    private static int[] tripIds(List<Trip> trips) {
+        int[] ids = new int[trips.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = trips.get(i).getTripId();
+        }
+        return ids;
+    }
+}
@@ -1,11 +1,13 @@
 package dao.interfaces;
 
 import java.util.List;
+import java.util.Map;
 import model.trip.Activity;
 import model.trip.Trip;
 
 public interface ActivityDAO {
 List<Activity> getAllByTrip(Trip trip);
+Map<Integer, List<Activity>> getAllByTripIds(int[] tripIds);
 void addToTrip(Trip trip, Activity activity);
 void removeFromTrip(Trip trip, String activityName);
 }
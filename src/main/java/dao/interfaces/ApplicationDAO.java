@@ -5,6 +5,7 @@ import model.application.ApplicationStatus;
 import model.user.Guide;
 import model.trip.Trip;
 import java.util.List;
+import java.util.Map;
 
 
 public interface ApplicationDAO {
@@ -14,5 +15,6 @@ public interface ApplicationDAO {
 
     Application getById(int id); // recupera per ID (opzionale ma utile)
     List<Application> getByTrip(Trip trip); // tutte le candidature per un viaggio
+    Map<Integer, List<Application>> getByTripIds(int[] tripIds); // candidature di più viaggi in una query
     List<Application> getByGuide(Guide guide); // tutte le candidature inviate da una guida
 }
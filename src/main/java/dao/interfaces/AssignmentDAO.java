@@ -1,9 +1,16 @@
 package dao.interfaces;
 
 import model.assignment.Assignment;
+import model.notification.Notification;
+import model.trip.Trip;
+import java.util.List;
+import java.util.Map;
 
 public interface AssignmentDAO {
     void save(Assignment assignment);
     void delete(Assignment assignment);
-    // altri metodi se ti servono (es. getByTrip, getAll...)
+    // salva le assegnazioni e le relative notifiche in un'unica transazione
+    boolean saveAll(List<Assignment> assignments, List<Notification> notifications);
+    List<Assignment> getByTrip(Trip trip);
+    Map<Integer, List<Assignment>> getByTripIds(int[] tripIds); // una query per più viaggi, il viaggio va collegato dal chiamante
 }
@@ -1,6 +1,7 @@
 package dao.interfaces;
 
 import java.util.List;
+import java.util.Map;
 import model.booking.Booking;
 import model.user.Traveler;
 import model.trip.Trip;
@@ -10,6 +11,12 @@ public interface BookingDAO {
     Booking getByTravelerAndTrip(Traveler traveler, Trip trip);
     List<Booking> getAll();
     List<Booking> getByTraveler(Traveler traveler);
+    List<Booking> getByTrip(Trip trip);
+    // prenotazioni di più viaggi in una query, per trip id; il viaggio va collegato dal chiamante
+    Map<Integer, List<Booking>> getByTripIds(int[] tripIds);
     void save(Booking booking);
-    void delete(Booking booking);
+    // cancella la prenotazione e libera il posto in un'unica transazione; false se non è stato possibile
+    boolean delete(Booking booking);
+    // prenota i posti e salva le prenotazioni (anche una sola) in un'unica transazione, oppure nessuna
+    boolean saveGroup(Trip trip, List<Booking> bookings);
 }
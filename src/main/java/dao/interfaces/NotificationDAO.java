@@ -1,10 +1,25 @@
 package dao.interfaces;
 
+import model.notification.Notifiable;
 import model.notification.Notification;
+import model.notification.NotificationTemplate;
+import model.notification.RecipientType;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface NotificationDAO {
     void save(Notification notification);
+    // un'unica INSERT multi-riga; assegna le sequenze dal contatore su DB, che restano a 0 se il salvataggio fallisce
+    void saveAll(List<Notification> notifications);
     void update(Notification notification);  // per marcare come letta
     List<Notification> getByUserId(String userId); // per caricarle da DB
+    // Paginazione per chiave (seq): le pagine restituite sono sempre ordinate per seq crescente
+    List<Notification> getPageAfter(Notifiable recipient, long afterSeq, int limit);
+    List<Notification> getPageBefore(Notifiable recipient, long beforeSeq, int limit);
+    int deleteReadOlderThan(LocalDateTime cutoff); // compattazione delle notifiche già lette
+    // Una notifica per ogni guida e viaggiatore del viaggio, in un solo statement; restituisce gli ID dei destinatari per tipo
+    Map<RecipientType, List<Integer>> notifyTripParticipants(int tripId, NotificationTemplate template, String... params);
+    void updateReadWatermark(Notifiable recipient, long readSeq); // un solo UPDATE per ogni lettura
+    long getReadWatermark(Notifiable recipient);
 }
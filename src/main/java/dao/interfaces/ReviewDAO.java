@@ -1,6 +1,7 @@
 package dao.interfaces;
 
 import java.util.List;
+import java.util.Map;
 import model.review.Review;
 import model.review.Reviewable;
 import model.user.Traveler;
@@ -8,6 +9,9 @@ import model.user.Traveler;
 public interface ReviewDAO {
     Review getById(int id);
     List<Review> getByTarget(Reviewable target);
+    // numero di recensioni per stelle (indice 0 = 1 stella), calcolato dal DB senza caricare le recensioni
+    int[] getRatingHistogram(Reviewable target);
+    Map<Integer, int[]> getTripRatingHistograms(int[] tripIds); // come sopra, per più viaggi con un'unica GROUP BY
     List<Review> getByAuthor(Traveler author);
     void save(Review review);
     void delete(int id);
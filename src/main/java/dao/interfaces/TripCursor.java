@@ -0,0 +1,13 @@
+package dao.interfaces;
+
+import java.util.Iterator;
+import model.trip.Trip;
+
+/**
+ * Iteratore sui viaggi letti dal database a blocchi: la riga successiva viene richiesta solo
+ * quando il chiamante la consuma. Tiene occupata una connessione finché non viene chiuso.
+ */
+public interface TripCursor extends Iterator<Trip>, AutoCloseable {
+    @Override
+    void close();
+}
@@ -1,11 +1,23 @@
 package dao.interfaces;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 import model.trip.Trip;
+import model.trip.TripCriteria;
+import model.trip.TripFetchPlan;
+import model.trip.TripPage;
 
 public interface TripDAO {
-    Trip findById(int id);
+    Trip findById(int id); // solo i campi scalari, le collezioni vengono caricate al primo accesso
+    Trip findById(int id, TripFetchPlan plan);
     List<Trip> findAll();
+    List<Trip> findAll(TripFetchPlan plan);
+    List<Trip> findByIds(int[] ids); // in una query, nell'ordine degli ID dati
+    TripCursor openCursor(); // scansione completa a blocchi, da chiudere a fine lettura
+    Stream<Trip> streamAll(); // come openCursor, da usare in try-with-resources
+    // pagina di viaggi che soddisfano i criteri, a partire dalla chiave (afterDate, afterId) esclusa; afterDate null = prima pagina
+    TripPage findPage(TripCriteria criteria, LocalDate afterDate, int afterId, int pageSize);
     void save(Trip trip);
     void update(Trip trip);
     void deleteById(int id);
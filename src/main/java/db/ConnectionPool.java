@@ -0,0 +1,364 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Pool di connessioni JDBC limitato.
+ * Le connessioni restituite da {@link #borrow()} sono proxy: {@code close()} le rimette nel pool
+ * invece di chiudere la connessione fisica, quindi i DAO possono continuare a usare try-with-resources.
+ */
+public class ConnectionPool {
+
+    /** Upper bounds (in ms) of the borrow-wait histogram buckets; the last bucket is open-ended. */
+    static final long[] WAIT_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long maxLifetimeMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+    private final int prepareThreshold;
+
+    // Fair semaphore: i thread in attesa ottengono una connessione in ordine di arrivo
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Boolean> borrowed = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLongArray borrowWaitHistogram = new AtomicLongArray(WAIT_BUCKETS_MS.length + 1);
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, Properties props) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = intProperty(props, "db.pool.maxSize", 10);
+        this.minIdle = Math.min(intProperty(props, "db.pool.minIdle", 2), maxSize);
+        this.borrowTimeoutMs = longProperty(props, "db.pool.borrowTimeoutMs", 30_000);
+        this.validationTimeoutSec = intProperty(props, "db.pool.validationTimeoutSec", 2);
+        this.maxLifetimeMs = longProperty(props, "db.pool.maxLifetimeMs", 30 * 60_000);
+        // Leak detection disattivata di default: cattura uno stack trace a ogni borrow
+        this.leakThresholdMs = longProperty(props, "db.pool.leakThresholdMs", 0);
+        this.statementCacheSize = intProperty(props, "db.statementCache.size", 64);
+        this.prepareThreshold = intProperty(props, "db.statementCache.prepareThreshold", 3);
+        long housekeepingMs = longProperty(props, "db.pool.housekeepingMs", 30_000);
+
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingMs, housekeepingMs, TimeUnit.MILLISECONDS);
+        fillToMinIdle();
+    }
+
+    /**
+     * Prende una connessione dal pool, aspettando al massimo {@code db.pool.borrowTimeoutMs}.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout after " + borrowTimeoutMs + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordBorrowWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        try {
+            PooledConnection pooled = null;
+            while (pooled == null) {
+                pooled = idle.pollFirst();
+                if (pooled == null && reserveSlot()) {
+                    pooled = open();
+                } else {
+                    if (pooled == null) {
+                        // Tutti gli slot sono occupati da connessioni che il housekeeper sta aprendo o chiudendo
+                        pooled = idle.pollFirst(10, TimeUnit.MILLISECONDS);
+                    }
+                    if (pooled != null && (pooled.isExpired() || !pooled.isValid())) {
+                        retire(pooled);
+                        pooled = null;
+                    }
+                }
+            }
+            pooled.onBorrow();
+            borrowed.put(pooled, Boolean.TRUE);
+            return pooled.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        if (borrowed.remove(pooled) == null) {
+            return; // already returned
+        }
+        try {
+            if (closed || pooled.isExpired() || !pooled.reset()) {
+                retire(pooled);
+            } else {
+                idle.offerFirst(pooled); // LIFO: le connessioni più calde vengono riusate per prime
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public PoolStats getStats() {
+        long[] histogram = new long[borrowWaitHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = borrowWaitHistogram.get(i);
+        }
+        return new PoolStats(borrowed.size(), idle.size(), permits.getQueueLength(),
+                totalConnections.get(), maxSize, WAIT_BUCKETS_MS.clone(), histogram,
+                statementCounters.hits.get(), statementCounters.misses.get(), statementCounters.evictions.get());
+    }
+
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            retire(pooled);
+        }
+    }
+
+    // Prenota uno slot per una nuova connessione fisica senza mai superare maxSize
+    private boolean reserveSlot() {
+        int total;
+        do {
+            total = totalConnections.get();
+            if (total >= maxSize) {
+                return false;
+            }
+        } while (!totalConnections.compareAndSet(total, total + 1));
+        return true;
+    }
+
+    // Apre una connessione nello slot già prenotato con reserveSlot(); se fallisce lo slot viene liberato
+    private PooledConnection open() throws SQLException {
+        try {
+            return new PooledConnection(DriverManager.getConnection(url, user, password));
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void retire(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.closePhysical();
+    }
+
+    private void recordBorrowWait(long waitMs) {
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MS.length && waitMs >= WAIT_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        borrowWaitHistogram.incrementAndGet(bucket);
+    }
+
+    // Validazione delle connessioni inattive, riciclo per max-lifetime, leak detection
+    private void housekeep() {
+        // Ogni connessione esce dal deque mentre viene validata, così nessun borrow la prende a metà controllo;
+        // si parte dal fondo (le meno usate) e le valide tornano in fondo nello stesso ordine
+        List<PooledConnection> valid = new ArrayList<>();
+        for (int i = idle.size(); i > 0; i--) {
+            PooledConnection pooled = idle.pollLast();
+            if (pooled == null) {
+                break;
+            }
+            if (pooled.isExpired() || !pooled.isValid()) {
+                retire(pooled);
+            } else {
+                valid.add(pooled);
+            }
+        }
+        for (int i = valid.size() - 1; i >= 0; i--) {
+            if (closed) {
+                retire(valid.get(i));
+            } else {
+                idle.offerLast(valid.get(i));
+            }
+        }
+
+        if (leakThresholdMs > 0) {
+            long now = System.currentTimeMillis();
+            for (PooledConnection pooled : borrowed.keySet()) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMs) {
+                    pooled.leakReported = true;
+                    new SQLException("Possible connection leak: connection borrowed "
+                            + (now - pooled.borrowedAt) + " ms ago and never returned", pooled.borrowSite).printStackTrace();
+                }
+            }
+        }
+
+        fillToMinIdle();
+    }
+
+    private void fillToMinIdle() {
+        while (!closed && idle.size() < minIdle && reserveSlot()) {
+            try {
+                idle.offerLast(open());
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Connessione fisica gestita dal pool, con il proxy consegnato ai DAO.
+     */
+    final class PooledConnection implements InvocationHandler {
+        final Connection physical;
+        final Connection proxy;
+        final StatementCache statements;
+        final long createdAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, proxy, statementCacheSize, prepareThreshold, statementCounters)
+                    : null;
+        }
+
+        void onBorrow() {
+            borrowedAt = System.currentTimeMillis();
+            // Lo stack trace costa: lo si cattura solo se la leak detection è attiva (db.pool.leakThresholdMs > 0)
+            borrowSite = leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > maxLifetimeMs;
+        }
+
+        boolean isValid() {
+            try {
+                return physical.isValid(validationTimeoutSec);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // Riporta la connessione allo stato di default prima di rimetterla nel pool
+        boolean reset() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            if (statements != null) {
+                statements.closeAll();
+            }
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                case "close":
+                    release(this);
+                    return null;
+                case "isClosed":
+                    return !borrowed.containsKey(this) || physical.isClosed();
+                case "prepareStatement":
+                    if (statements != null && borrowed.containsKey(this)) {
+                        if (args.length == 1) {
+                            return statements.prepare((String) args[0]);
+                        }
+                        if (args.length == 2 && method.getParameterTypes()[1] == int.class) {
+                            return statements.prepare((String) args[0], (Integer) args[1]);
+                        }
+                    }
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(physical)) {
+                        return physical;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (!borrowed.containsKey(this)) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
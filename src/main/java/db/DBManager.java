@@ -2,18 +2,17 @@ package db;
 
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 /**
  * Singleton che gestisce la connessione al database PostgreSQL.
+ * Le connessioni sono prese da un {@link ConnectionPool} configurato tramite le chiavi
+ * {@code db.pool.*} di db.properties; chiudere la connessione la restituisce al pool.
  */
 public class DBManager {
-    private static DBManager instance;
-    private final String url;
-    private final String user;
-    private final String password;
+    private static volatile DBManager instance;
+    private final ConnectionPool pool;
 
     private DBManager() {
         Properties props = new Properties();
@@ -22,22 +21,38 @@ public class DBManager {
                 throw new RuntimeException("Impossibile trovare db.properties");
             }
             props.load(input);
-            url = props.getProperty("db.url");
-            user = props.getProperty("db.user");
-            password = props.getProperty("db.password");
         } catch (Exception e) {
             throw new RuntimeException("Errore nella lettura di db.properties", e);
         }
+        pool = new ConnectionPool(
+                props.getProperty("db.url"),
+                props.getProperty("db.user"),
+                props.getProperty("db.password"),
+                props);
     }
 
     public static DBManager getInstance() {
-        if (instance == null) {
-            instance = new DBManager();
+        DBManager result = instance;
+        if (result == null) {
+            synchronized (DBManager.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new DBManager();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, user, password);
+        return pool.borrow();
+    }
+
+    public PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+    public void shutdown() {
+        pool.close();
     }
 }
@@ -0,0 +1,97 @@
+package db;
+
+/**
+ * Fotografia delle statistiche del pool di connessioni (e della cache degli statement) in un dato istante.
+ */
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final int total;
+    private final int maxSize;
+    private final long[] waitBucketsMs;
+    private final long[] borrowWaitHistogram;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStats(int active, int idle, int waiters, int total, int maxSize,
+                     long[] waitBucketsMs, long[] borrowWaitHistogram,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.total = total;
+        this.maxSize = maxSize;
+        this.waitBucketsMs = waitBucketsMs;
+        this.borrowWaitHistogram = borrowWaitHistogram;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // Upper bounds of the histogram buckets in ms; the histogram has one extra open-ended bucket
+    public long[] getWaitBucketsMs() {
+        return waitBucketsMs;
+    }
+
+    public long[] getBorrowWaitHistogram() {
+        return borrowWaitHistogram;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    public double getStatementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("active=").append(active)
+          .append(", idle=").append(idle)
+          .append(", waiters=").append(waiters)
+          .append(", total=").append(total).append('/').append(maxSize)
+          .append(", borrowWait={");
+        for (int i = 0; i < borrowWaitHistogram.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(i < waitBucketsMs.length ? "<" + waitBucketsMs[i] + "ms" : ">=" + waitBucketsMs[i - 1] + "ms")
+              .append('=').append(borrowWaitHistogram[i]);
+        }
+        sb.append("}, statementCache={hits=").append(statementCacheHits)
+          .append(", misses=").append(statementCacheMisses)
+          .append(", evictions=").append(statementCacheEvictions).append('}');
+        return sb.toString();
+    }
+}
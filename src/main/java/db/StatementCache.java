@@ -0,0 +1,188 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.postgresql.PGStatement;
+
+/**
+ * Cache LRU dei PreparedStatement di una singola connessione fisica del pool, indicizzata per testo SQL.
+ * Chiudere lo statement restituito lo rimette in cache; lo statement fisico viene chiuso solo
+ * quando esce dalla cache o quando la connessione viene ritirata dal pool.
+ * <p>
+ * Riusare lo stesso statement permette al driver PostgreSQL di passare a uno statement
+ * preparato lato server dopo {@code prepareThreshold} esecuzioni.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final Connection logical;
+    private final int maxSize;
+    private final int prepareThreshold;
+    private final Counters counters;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(Connection physical, Connection logical, int maxSize, int prepareThreshold, Counters counters) {
+        this.physical = physical;
+        this.logical = logical;
+        this.maxSize = maxSize;
+        this.prepareThreshold = prepareThreshold;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            counters.hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        counters.misses.incrementAndGet();
+        PreparedStatement stmt = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Same SQL already open on this connection (nested use): hand out an uncached statement
+            return stmt;
+        }
+        applyPrepareThreshold(stmt);
+        cached = new CachedStatement(key, stmt);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    void closeAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            cached.closePhysical();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Chiude gli statement meno usati di recente finché la cache torna entro maxSize.
+     * Quelli in uso vengono saltati: se sono tutti in uso la cache resta sopra il limite
+     * al massimo di quanti statement sono aperti in quel momento, e rientra al loro checkIn().
+     */
+    private void evictOverflow() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement cached = it.next();
+            if (!cached.inUse) {
+                it.remove();
+                counters.evictions.incrementAndGet();
+                cached.closePhysical();
+            }
+        }
+    }
+
+    private void applyPrepareThreshold(PreparedStatement stmt) {
+        try {
+            if (stmt.isWrapperFor(PGStatement.class)) {
+                stmt.unwrap(PGStatement.class).setPrepareThreshold(prepareThreshold);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Contatori condivisi da tutte le cache del pool.
+     */
+    static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private final class CachedStatement implements InvocationHandler {
+        final String key;
+        final PreparedStatement physicalStatement;
+        final PreparedStatement proxy;
+        boolean inUse;
+
+        CachedStatement(String key, PreparedStatement physicalStatement) {
+            this.key = key;
+            this.physicalStatement = physicalStatement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        // Rimette lo statement in cache, scartandolo se non è più riutilizzabile
+        void checkIn() {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            try {
+                ResultSet rs = physicalStatement.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                physicalStatement.clearParameters();
+                physicalStatement.clearBatch();
+                physicalStatement.clearWarnings();
+            } catch (SQLException e) {
+                statements.remove(key);
+                closePhysical();
+                return;
+            }
+            if (statements.size() > maxSize) {
+                evictOverflow();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physicalStatement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + physicalStatement;
+                case "close":
+                    checkIn();
+                    return null;
+                case "isClosed":
+                    return !inUse || physicalStatement.isClosed();
+                case "getConnection":
+                    return logical;
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(physicalStatement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
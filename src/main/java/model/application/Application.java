@@ -3,6 +3,9 @@ package model.application;
 import model.trip.Trip;
 import model.user.Guide;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class Application {
     private int applicationId;
     private String CV;
@@ -11,6 +14,10 @@ public class Application {
     private Guide guide;
     private Trip trip;
 
+    // Registers indexing this application by status, notified on every status change.
+    // Copy-on-write: attach/detach come from any register while status changes iterate the list
+    private final List<ApplicationRegister> registers = new CopyOnWriteArrayList<>();
+
     // Constructor for new Application (ID will be assigned by the database)
     public Application(String CV, Guide guide, Trip trip) {
         this.applicationId = 0; // will be set by DB
@@ -51,7 +58,7 @@ public class Application {
     }
 
     public void setStatus(ApplicationStatus status) {
-        this.status = status;
+        changeStatus(status);
     }
 
     public Guide getGuide() {
@@ -72,7 +79,7 @@ public class Application {
 
     public void accept() {
         if (this.status == ApplicationStatus.PENDING) {
-            this.status = ApplicationStatus.ACCEPTED;
+            changeStatus(ApplicationStatus.ACCEPTED);
         } else {
             throw new IllegalStateException("Cannot accept an application that is not pending.");
         }
@@ -80,7 +87,7 @@ public class Application {
 
     public void reject() {
         if (this.status == ApplicationStatus.PENDING) {
-            this.status = ApplicationStatus.REJECTED;
+            changeStatus(ApplicationStatus.REJECTED);
         } else {
             throw new IllegalStateException("Cannot reject an application that is not pending.");
         }
@@ -89,4 +96,22 @@ public class Application {
     public boolean isPending() {
         return this.status == ApplicationStatus.PENDING;
     }
+
+    private void changeStatus(ApplicationStatus newStatus) {
+        ApplicationStatus oldStatus = this.status;
+        this.status = newStatus;
+        if (oldStatus != newStatus) {
+            for (ApplicationRegister register : registers) {
+                register.onStatusChanged(this, oldStatus);
+            }
+        }
+    }
+
+    void attach(ApplicationRegister register) {
+        registers.add(register);
+    }
+
+    void detach(ApplicationRegister register) {
+        registers.remove(register);
+    }
 }
@@ -4,52 +4,142 @@ import model.trip.Trip;
 import model.user.Guide;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Applications indexed by trip id (split by status), by guide id and by status,
+ * so lookups cost O(1) or O(k) in the number of matching applications.
+ * Applications move between status buckets on accept()/reject().
+ */
 public class ApplicationRegister {
-    private List<Application> applications;
+    private final Set<Application> applications = new LinkedHashSet<>();
+    private final Map<Integer, EnumMap<ApplicationStatus, Set<Application>>> byTrip = new HashMap<>();
+    // guideId -> (tripId -> application), in application order
+    private final Map<Integer, Map<Integer, Application>> byGuide = new HashMap<>();
+    private final EnumMap<ApplicationStatus, Set<Application>> byStatus = new EnumMap<>(ApplicationStatus.class);
 
     // Constructor for new empty register
     public ApplicationRegister() {
-        this.applications = new ArrayList<>();
     }
 
     // Constructor for reconstruction from database
     public ApplicationRegister(List<Application> applications) {
-        this.applications = applications;
+        for (Application application : applications) {
+            addApplication(application);
+        }
     }
 
     // Getter
-    public List<Application> getApplications() {
-        return applications;
+    public synchronized List<Application> getApplications() {
+        return new ArrayList<>(applications);
     }
 
-    public void addApplication(Application application) {
+    /**
+     * Adds an application; a guide can apply only once to the same trip.
+     */
+    public synchronized void addApplication(Application application) {
+        int guideId = application.getGuide().getGuideId();
+        int tripId = application.getTrip().getTripId();
+        requireSavedIds(guideId, tripId);
+        Map<Integer, Application> guideApplications = byGuide.computeIfAbsent(guideId, k -> new LinkedHashMap<>());
+        if (guideApplications.containsKey(tripId)) {
+            throw new IllegalStateException("The guide has already applied for this trip.");
+        }
+        guideApplications.put(tripId, application);
         applications.add(application);
+        bucket(byTrip.computeIfAbsent(tripId, k -> new EnumMap<>(ApplicationStatus.class)), application.getStatus())
+                .add(application);
+        bucket(byStatus, application.getStatus()).add(application);
+        application.attach(this);
     }
 
-    public List<Application> getAcceptedApplicationsForTrip(Trip trip) {
-        List<Application> acceptedApplications = new ArrayList<>();
-        for (Application application : applications) {
-            if (application.getStatus() == ApplicationStatus.ACCEPTED) {
-                acceptedApplications.add(application);
-            }
+    public synchronized List<Application> getAcceptedApplicationsForTrip(Trip trip) {
+        return getApplicationsForTrip(trip, ApplicationStatus.ACCEPTED);
+    }
+
+    public synchronized List<Application> getApplicationsForTrip(Trip trip, ApplicationStatus status) {
+        EnumMap<ApplicationStatus, Set<Application>> tripApplications = byTrip.get(trip.getTripId());
+        if (tripApplications == null || !tripApplications.containsKey(status)) {
+            return new ArrayList<>();
         }
-        return acceptedApplications;
+        return new ArrayList<>(tripApplications.get(status));
     }
 
-    public Application getApplicationByGuide(Guide guide) {
-        for (Application application : applications) {
-            if (application.getGuide().equals(guide)) {
-                return application;
+    public synchronized List<Application> getApplicationsByStatus(ApplicationStatus status) {
+        Set<Application> bucket = byStatus.get(status);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+
+    public synchronized Application getApplication(Guide guide, Trip trip) {
+        Map<Integer, Application> guideApplications = byGuide.get(guide.getGuideId());
+        return guideApplications == null ? null : guideApplications.get(trip.getTripId());
+    }
+
+    // The guide's first application still in the register; see getApplicationsByGuide for all of them
+    public synchronized Application getApplicationByGuide(Guide guide) {
+        Map<Integer, Application> guideApplications = byGuide.get(guide.getGuideId());
+        if (guideApplications == null || guideApplications.isEmpty()) {
+            return null; // No application found for the given guide
+        }
+        return guideApplications.values().iterator().next();
+    }
+
+    // All the guide's applications, in the order they were added
+    public synchronized List<Application> getApplicationsByGuide(Guide guide) {
+        Map<Integer, Application> guideApplications = byGuide.get(guide.getGuideId());
+        return guideApplications == null ? new ArrayList<>() : new ArrayList<>(guideApplications.values());
+    }
+
+    public synchronized void removeApplication(Application application) {
+        if (!applications.remove(application)) {
+            return;
+        }
+        int guideId = application.getGuide().getGuideId();
+        int tripId = application.getTrip().getTripId();
+        Map<Integer, Application> guideApplications = byGuide.get(guideId);
+        if (guideApplications != null && guideApplications.get(tripId) == application) {
+            guideApplications.remove(tripId);
+            if (guideApplications.isEmpty()) {
+                byGuide.remove(guideId);
             }
         }
-        return null; // No application found for the given guide
+        EnumMap<ApplicationStatus, Set<Application>> tripApplications = byTrip.get(tripId);
+        if (tripApplications != null) {
+            bucket(tripApplications, application.getStatus()).remove(application);
+        }
+        bucket(byStatus, application.getStatus()).remove(application);
+        application.detach(this);
     }
 
-    public void removeApplication(Application application) {
-        applications.remove(application);
+    // Moves the application to the bucket of its new status
+    synchronized void onStatusChanged(Application application, ApplicationStatus oldStatus) {
+        if (!applications.contains(application)) {
+            return;
+        }
+        EnumMap<ApplicationStatus, Set<Application>> tripApplications = byTrip.get(application.getTrip().getTripId());
+        bucket(tripApplications, oldStatus).remove(application);
+        bucket(tripApplications, application.getStatus()).add(application);
+        bucket(byStatus, oldStatus).remove(application);
+        bucket(byStatus, application.getStatus()).add(application);
+    }
+
+    // Applications are indexed by guide and trip id: unsaved guides or trips (ID 0) would all collide on key 0
+    private static void requireSavedIds(int guideId, int tripId) {
+        if (guideId == 0) {
+            throw new IllegalArgumentException("Guide must be saved before applying for a trip");
+        }
+        if (tripId == 0) {
+            throw new IllegalArgumentException("Trip must be saved before receiving applications");
+        }
     }
 
-    // Other utility methods if needed (e.g., addApplication, removeApplication, etc.)
+    private static Set<Application> bucket(EnumMap<ApplicationStatus, Set<Application>> buckets, ApplicationStatus status) {
+        return buckets.computeIfAbsent(status, k -> new LinkedHashSet<>());
+    }
 }
@@ -3,18 +3,27 @@ package model.booking;
 import model.user.Traveler;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BookingRegister {
-    private List<Booking> bookings = new ArrayList<>();
-    private int minTrav;
-    private int maxTrav;
+    // Bookings in insertion order (O(1) removal), plus an index by travelerId for O(1) lookups
+    private final LinkedHashSet<Booking> bookings = new LinkedHashSet<>();
+    private final TravelerBookingMap byTraveler = new TravelerBookingMap();
+    private volatile int minTrav;
+    private volatile int maxTrav;
+    // Seats taken on this trip. Reserved with CAS before a booking is added, so concurrent
+    // bookings never oversell the trip and never wait on a lock.
+    private final AtomicInteger bookedSeats = new AtomicInteger();
 
     // Constructor for reconstruction from database
     public BookingRegister(List<Booking> bookings, int minTrav, int maxTrav) {
-        this.bookings = bookings;
         this.minTrav = minTrav;
         this.maxTrav = maxTrav;
+        setBookings(bookings);
     }
 
     public BookingRegister(int minTrav, int maxTrav) {
@@ -22,12 +31,18 @@ public class BookingRegister {
         this.maxTrav = maxTrav;
     }
 
-    public List<Booking> getBookings() {
-        return bookings;
+    // Snapshot of the bookings in insertion order
+    public synchronized List<Booking> getBookings() {
+        return new ArrayList<>(bookings);
     }
 
-    public void setBookings(List<Booking> bookings) {
-        this.bookings = bookings;
+    public synchronized void setBookings(List<Booking> bookings) {
+        this.bookings.clear();
+        this.byTraveler.clear();
+        for (Booking booking : bookings) {
+            index(booking);
+        }
+        this.bookedSeats.set(this.bookings.size());
     }
 
     public int getMinTrav() {
@@ -47,38 +62,129 @@ public class BookingRegister {
     }
 
 
-    public void addBooking(Booking booking) {
-        bookings.add(booking);
+    /**
+     * Reserves one seat if the trip is not full. Must be called before {@link #addBooking(Booking)};
+     * on failure the booking must not be added.
+     */
+    public boolean tryReserveSeat() {
+        return tryReserveSeats(1);
     }
 
+    // Gives back a seat reserved with tryReserveSeat (booking cancelled or not persisted)
+    public void releaseSeat() {
+        releaseSeats(1);
+    }
 
-    public void removeBooking(Booking booking) {
-        bookings.remove(booking);
+    // Reserves all the seats of a group booking, or none of them
+    public boolean tryReserveSeats(int seats) {
+        while (true) {
+            int booked = bookedSeats.get();
+            if (booked + seats > maxTrav) {
+                return false;
+            }
+            if (bookedSeats.compareAndSet(booked, booked + seats)) {
+                return true;
+            }
+        }
     }
 
-    public int getAvailableSpots() {
-        return maxTrav - bookings.size();
+    public void releaseSeats(int seats) {
+        while (true) {
+            int booked = bookedSeats.get();
+            int released = Math.max(0, booked - seats);
+            if (booked == released || bookedSeats.compareAndSet(booked, released)) {
+                return;
+            }
+        }
     }
 
-    public boolean hasBooking(Traveler traveler) {
-        for (Booking booking : bookings) {
-            if (booking.getTraveler().equals(traveler)) {
-                return true;
+    public int getBookedSeats() {
+        return bookedSeats.get();
+    }
+
+    // Seats already taken according to the database (e.g. trips loaded without their bookings)
+    public void setBookedSeats(int bookedSeats) {
+        this.bookedSeats.set(bookedSeats);
+    }
+
+    /**
+     * Adds a booking whose seat is already reserved with tryReserveSeat.
+     * Returns false (and adds nothing) if the traveler already has a booking on this trip.
+     */
+    public synchronized boolean addBooking(Booking booking) {
+        requireSavedTraveler(booking.getTraveler());
+        if (byTraveler.containsKey(booking.getTraveler().getTravelerId())) {
+            return false;
+        }
+        index(booking);
+        return true;
+    }
+
+    /**
+     * Adds a group of bookings whose seats are already reserved with tryReserveSeats.
+     * All or nothing: returns false (and adds nothing) if any traveler already has a booking on this trip
+     * or appears twice in the group.
+     */
+    public synchronized boolean addBookings(List<Booking> group) {
+        Set<Integer> groupTravelers = new HashSet<>();
+        for (Booking booking : group) {
+            requireSavedTraveler(booking.getTraveler());
+            int travelerId = booking.getTraveler().getTravelerId();
+            if (byTraveler.containsKey(travelerId) || !groupTravelers.add(travelerId)) {
+                return false;
             }
         }
-        return false;
+        for (Booking booking : group) {
+            index(booking);
+        }
+        return true;
+    }
+
+    // Undoes addBookings for a group that could not be persisted; the seats are released separately
+    public synchronized void removeBookings(List<Booking> group) {
+        for (Booking booking : group) {
+            removeBooking(booking);
+        }
     }
 
-    public Booking getBookingByTraveler(Traveler traveler) {
-    for (Booking booking : bookings) {
-        if (booking.getTraveler().equals(traveler)) {
-            return booking;
+    // The seat is given back separately with releaseSeat, and only by the caller that got true
+    public synchronized boolean removeBooking(Booking booking) {
+        if (!bookings.remove(booking)) {
+            return false;
+        }
+        int travelerId = booking.getTraveler().getTravelerId();
+        if (byTraveler.get(travelerId) == booking) {
+            byTraveler.remove(travelerId);
         }
+        return true;
     }
-    return null;
+
+    public int getAvailableSpots() {
+        return maxTrav - bookedSeats.get();
     }
 
-    public List<Booking> getAllBookings() {
+    public synchronized boolean hasBooking(Traveler traveler) {
+        return byTraveler.containsKey(traveler.getTravelerId());
+    }
+
+    public synchronized Booking getBookingByTraveler(Traveler traveler) {
+        return byTraveler.get(traveler.getTravelerId());
+    }
+
+    public synchronized List<Booking> getAllBookings() {
         return new ArrayList<>(bookings);
     }
+
+    // Bookings are indexed by travelerId: unsaved travelers (ID 0) would all collide on the same key.
+    // Callers check it before tryReserveSeat(s), so a rejected traveler never holds a seat
+    public static void requireSavedTraveler(Traveler traveler) {
+        if (traveler.getTravelerId() == 0) {
+            throw new IllegalArgumentException("Traveler must be saved before booking a trip");
+        }
+    }
+
+    private void index(Booking booking) {
+        bookings.add(booking);
+        byTraveler.put(booking.getTraveler().getTravelerId(), booking);
+    }
 }
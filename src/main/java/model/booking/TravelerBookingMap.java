@@ -0,0 +1,120 @@
+package model.booking;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from travelerId to Booking, with primitive int keys (no boxing).
+ * Keys are database IDs: BookingRegister rejects unsaved travelers (ID 0) before they get here.
+ * Linear probing; removals shift the following entries back so no tombstones are needed.
+ * Not thread-safe: BookingRegister guards it with its own monitor.
+ */
+class TravelerBookingMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Booking[] values; // null = empty slot
+    private int size;
+
+    TravelerBookingMap() {
+        this(MIN_CAPACITY);
+    }
+
+    TravelerBookingMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Booking[capacity];
+    }
+
+    Booking get(int travelerId) {
+        int mask = keys.length - 1;
+        for (int i = slot(travelerId, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == travelerId) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    boolean containsKey(int travelerId) {
+        return get(travelerId) != null;
+    }
+
+    // Returns the previous booking for the traveler, or null
+    Booking put(int travelerId, Booking booking) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int i = slot(travelerId, mask);
+        while (values[i] != null) {
+            if (keys[i] == travelerId) {
+                Booking previous = values[i];
+                values[i] = booking;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = travelerId;
+        values[i] = booking;
+        size++;
+        return null;
+    }
+
+    Booking remove(int travelerId) {
+        int mask = keys.length - 1;
+        int i = slot(travelerId, mask);
+        while (values[i] != null && keys[i] != travelerId) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return null;
+        }
+        Booking removed = values[i];
+        values[i] = null;
+        size--;
+
+        // Backward-shift: move up entries whose probe sequence passed through the freed slot
+        int free = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            boolean reachable = free <= j ? (home <= free || home > j) : (home <= free && home > j);
+            if (reachable) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                values[j] = null;
+                free = j;
+            }
+        }
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Booking[] oldValues = values;
+        keys = new int[capacity];
+        values = new Booking[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9; // Fibonacci hashing spreads consecutive ids
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
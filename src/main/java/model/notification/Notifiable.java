@@ -4,4 +4,8 @@ public interface Notifiable {
     void receiveNotification(Notification notification);
 
     NotificationRegister getNotificationRegister();
+
+    RecipientType getRecipientType();
+
+    int getRecipientId();
 }
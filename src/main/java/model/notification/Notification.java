@@ -1,36 +1,69 @@
 package model.notification;
 
+import java.time.LocalDateTime;
+
 public class Notification {
     private int id;
-    private String text;
+    private NotificationTemplate template;
+    private String[] params;
     private Notifiable recipient;
-    private Boolean read;
+    private Boolean read; // usato solo finché la notifica non è in un registro
+    private volatile long seq; // posizione nella sequenza del destinatario, 0 = non ancora assegnata
+    private NotificationRegister register;
+    private LocalDateTime createdAt;
 
     public Notification(String text, Notifiable recipient) {
+        this(NotificationTemplate.FREE_TEXT, recipient, text);
+    }
+
+    public Notification(NotificationTemplate template, Notifiable recipient, String... params) {
         this.id = 0; // Default ID, will be assigned by the database
-        this.text = text;
-        this.read = false; 
+        this.template = template;
+        this.params = params;
+        this.read = false;
         this.recipient = recipient;
+        this.createdAt = LocalDateTime.now();
     }
 
     public Notification(int id, String text, Notifiable recipient, Boolean read) {
+        this(id, NotificationTemplate.FREE_TEXT, new String[]{text}, recipient, read);
+    }
+
+    public Notification(int id, NotificationTemplate template, String[] params, Notifiable recipient, Boolean read) {
         this.id = id;
-        this.text = text;
+        this.template = template;
+        this.params = params;
         this.recipient = recipient;
         this.read = read;
     }
 
+    // Il testo non è memorizzato: viene composto ogni volta dal template
     public String getText() {
-        return text;
+        return template.render(params);
     }
     public void setText(String text) {
-        this.text = text;
+        this.template = NotificationTemplate.FREE_TEXT;
+        this.params = new String[]{text};
+    }
+
+    public NotificationTemplate getTemplate() {
+        return template;
+    }
+
+    public String[] getParams() {
+        return params;
     }
+    // Una notifica in un registro è letta se la sua sequenza non supera il watermark di lettura
     public Boolean isRead() {
-        return read;
+        NotificationRegister r = register;
+        return r != null && seq != 0 ? r.isRead(this) : read;
     }
     public void setRead(Boolean read) {
-        this.read = read;
+        if (Boolean.TRUE.equals(read)) {
+            markAsRead();
+        } else {
+            this.read = read;
+        }
     }
 
     public Notifiable getRecipient() {
@@ -47,8 +80,43 @@ public class Notification {
         this.id = id;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    void setRegister(NotificationRegister register) {
+        this.register = register;
+    }
+
+    Boolean getReadFlag() {
+        return read;
+    }
+
+    // Chiamato da chi salva la notifica, dopo il commit: se era in attesa della sequenza prende il suo posto nel registro
+    public void onSaved() {
+        NotificationRegister r = register;
+        if (r != null && seq != 0) {
+            r.settle(this);
+        }
+    }
+
+    // Nel registro la lettura è per watermark: segna come lette anche le notifiche precedenti
     public void markAsRead() {
         this.read = true;
+        NotificationRegister r = register;
+        if (r != null && seq != 0) {
+            r.markReadUpTo(seq);
+        }
     }
 
 }
@@ -2,56 +2,260 @@ package model.notification;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * NotificationRegister rappresenta una collezione di notifiche ricevute da un utente.
  * Relazione di aggregazione: le notifiche sono create esternamente.
+ *
+ * Ogni notifica ha una sequenza crescente per destinatario, assegnata dal contatore su DB quando
+ * viene salvata e mai in memoria. Con la scrittura asincrona una notifica entra nel registro prima
+ * di avere la sequenza: resta "in attesa" (dopo tutte le altre, letta o no secondo il proprio flag)
+ * finché chi la salva non chiama {@link Notification#onSaved()}. Lo stato di lettura è un unico
+ * watermark (readSeq): sono lette tutte le notifiche con seq <= readSeq. Il cursore indica
+ * la prima notifica non letta nella lista, quindi "prossima non letta", "segna tutte come lette"
+ * e il conteggio delle non lette sono O(1).
+ *
+ * In memoria resta solo una finestra con le ultime {@code capacity} notifiche; quelle più vecchie
+ * si leggono a pagine da NotificationDAO (vedi {@link #hasUnreadOutsideWindow()}).
  */
 public class NotificationRegister {
-    private List<Notification> notifications = new ArrayList<>();
-    private int numUnread = 0;
+    public static final int DEFAULT_CAPACITY = 50;
+
+    private final int capacity;
+    private final List<Notification> notifications = new ArrayList<>(); // ordinate per seq
+    private final List<Notification> pending = new ArrayList<>(); // in attesa della sequenza, in ordine di invio
+    private long lastSeq = 0;
+    private long readSeq = 0;
+    private long evictedUpToSeq = 0; // le notifiche con seq <= evictedUpToSeq sono solo nel DB
+    private int cursor = 0;
+    // Vero se sono state scritte su DB notifiche che la finestra non contiene ancora (fan-out)
+    private final AtomicBoolean stale = new AtomicBoolean();
 
     public NotificationRegister() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NotificationRegister(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
     }
 
-    // Constructor for reconstruction from database
+    // Constructor for reconstruction from database: le prime size - numUnread notifiche sono lette
     public NotificationRegister(List<Notification> notifications, int numUnread) {
-        this.notifications = notifications;
-        this.numUnread = numUnread;
+        this(DEFAULT_CAPACITY);
+        for (Notification notification : notifications) {
+            addNotification(notification);
+        }
+        setNumUnread(numUnread);
     }
 
-    public void addNotification(Notification notification) {
-        notifications.add(notification);
-        if (!notification.isRead()) {
-            numUnread++;
+    public NotificationRegister(List<Notification> notifications, long readSeq) {
+        this(DEFAULT_CAPACITY);
+        for (Notification notification : notifications) {
+            addNotification(notification);
         }
+        markReadUpTo(readSeq);
     }
 
-    public void removeNotification(Notification notification) {
-        notifications.remove(notification);
-        if (!notification.isRead()) {
-            numUnread--;
+    /**
+     * Sostituisce il contenuto con la pagina più recente letta dal DB (ordinata per seq,
+     * al più {@code capacity} notifiche); quelle più vecchie restano solo nel DB.
+     */
+    public synchronized void load(List<Notification> latest, long readSeq) {
+        for (Notification notification : notifications) {
+            notification.setRegister(null);
+        }
+        notifications.clear();
+        cursor = 0;
+        this.readSeq = readSeq;
+        this.lastSeq = latest.isEmpty() ? readSeq : Math.max(readSeq, latest.get(latest.size() - 1).getSeq());
+        this.evictedUpToSeq = latest.isEmpty() ? lastSeq : latest.get(0).getSeq() - 1;
+        for (Notification notification : latest) {
+            addNotification(notification);
         }
     }
 
-    public List<Notification> getNotifications() {
-        return notifications;
+    public synchronized void addNotification(Notification notification) {
+        if (notification.getSeq() <= 0) {
+            pending.add(notification);
+            notification.setRegister(this);
+            return;
+        }
+        if (notification.getSeq() > lastSeq) {
+            lastSeq = notification.getSeq();
+        }
+        if (notification.getSeq() <= evictedUpToSeq) {
+            return; // più vecchia della finestra
+        }
+        int index = notifications.size();
+        // Le sequenze riservate possono arrivare fuori ordine
+        while (index > 0 && notifications.get(index - 1).getSeq() > notification.getSeq()) {
+            index--;
+        }
+        notifications.add(index, notification);
+        if (notification.getSeq() <= readSeq) {
+            cursor++;
+        }
+        notification.setRegister(this);
+
+        while (notifications.size() > capacity) {
+            Notification evicted = notifications.remove(0);
+            evictedUpToSeq = evicted.getSeq();
+            if (cursor > 0) {
+                cursor--;
+            }
+            evicted.setRegister(null);
+            evicted.setRead(evicted.getSeq() <= readSeq);
+        }
     }
 
-    public int getNumUnread() {
-        return numUnread;
+    /**
+     * La notifica in attesa ha ricevuto la sequenza: passa nella lista ordinata. Se nel frattempo era stata letta,
+     * lo sono anche le precedenti: le sequenze del destinatario vengono assegnate nell'ordine di invio.
+     */
+    synchronized void settle(Notification notification) {
+        if (!pending.remove(notification)) {
+            return;
+        }
+        boolean read = Boolean.TRUE.equals(notification.getReadFlag());
+        addNotification(notification);
+        if (read) {
+            markReadUpTo(notification.getSeq());
+        }
     }
 
-    public void setNumUnread(int numUnread) {
-        this.numUnread = numUnread;
+    public synchronized void removeNotification(Notification notification) {
+        if (pending.remove(notification)) {
+            notification.setRegister(null);
+            return;
+        }
+        int index = notifications.indexOf(notification);
+        if (index < 0) {
+            return;
+        }
+        notifications.remove(index);
+        if (index < cursor) {
+            cursor--;
+        }
+        notification.setRegister(null);
     }
 
-    public void markAllAsRead() {
-        for (Notification notification : notifications) {
-            if (!notification.isRead()) {
-                notification.setRead(true);
-                numUnread--;
+    // Le notifiche nella finestra, dalla più vecchia alla più recente, seguite da quelle in attesa
+    public synchronized List<Notification> getNotifications() {
+        List<Notification> all = new ArrayList<>(notifications);
+        all.addAll(pending);
+        return all;
+    }
+
+    public synchronized List<Notification> getUnreadNotifications() {
+        List<Notification> unread = new ArrayList<>(notifications.subList(cursor, notifications.size()));
+        for (Notification notification : pending) {
+            if (!Boolean.TRUE.equals(notification.getReadFlag())) {
+                unread.add(notification);
             }
         }
+        return unread;
+    }
+
+    // Le sequenze sono consecutive per destinatario, quindi le non lette sono la differenza tra i due contatori,
+    // più quelle ancora in attesa della sequenza
+    public synchronized int getNumUnread() {
+        int unreadPending = 0;
+        for (Notification notification : pending) {
+            if (!Boolean.TRUE.equals(notification.getReadFlag())) {
+                unreadPending++;
+            }
+        }
+        return (int) Math.max(0, lastSeq - readSeq) + unreadPending;
+    }
+
+    // Lascia non lette solo le ultime numUnread notifiche
+    public synchronized void setNumUnread(int numUnread) {
+        int read = notifications.size() - Math.max(0, Math.min(numUnread, notifications.size()));
+        if (read > 0) {
+            markReadUpTo(notifications.get(read - 1).getSeq());
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public synchronized long getReadSeq() {
+        return readSeq;
+    }
+
+    // Sequenza da cui partire per leggere dal DB le pagine più vecchie della finestra
+    public synchronized long getOldestSeq() {
+        return notifications.isEmpty() ? lastSeq + 1 : notifications.get(0).getSeq();
+    }
+
+    // Vero se ci sono notifiche non lette già uscite dalla finestra: vanno lette dal DB
+    public synchronized boolean hasUnreadOutsideWindow() {
+        return readSeq < evictedUpToSeq;
+    }
+
+    /**
+     * La prossima notifica non letta nella finestra, che diventa letta; null se non ce ne sono
+     * o se la prossima è già uscita dalla finestra ({@link #hasUnreadOutsideWindow()}).
+     */
+    public synchronized Notification nextUnread() {
+        if (hasUnreadOutsideWindow()) {
+            return null;
+        }
+        if (cursor == notifications.size()) {
+            for (Notification notification : pending) {
+                if (!Boolean.TRUE.equals(notification.getReadFlag())) {
+                    notification.markAsRead();
+                    return notification;
+                }
+            }
+            return null;
+        }
+        Notification next = notifications.get(cursor++);
+        readSeq = next.getSeq();
+        return next;
+    }
+
+    // Sposta il watermark in avanti; restituisce il watermark risultante
+    public synchronized long markReadUpTo(long seq) {
+        if (seq > readSeq) {
+            readSeq = seq;
+            while (cursor < notifications.size() && notifications.get(cursor).getSeq() <= readSeq) {
+                cursor++;
+            }
+        }
+        return readSeq;
+    }
+
+    public synchronized long markAllAsRead() {
+        for (Notification notification : pending) {
+            notification.markAsRead();
+        }
+        return markReadUpTo(lastSeq);
+    }
+
+    // Il destinatario ha ricevuto notifiche scritte direttamente su DB
+    public void markStale() {
+        stale.set(true);
+    }
+
+    // Restituisce true solo al primo chiamante dopo markStale(): è lui a dover ricaricare la finestra
+    public boolean clearStale() {
+        return stale.compareAndSet(true, false);
+    }
+
+    synchronized boolean isRead(Notification notification) {
+        if (pending.contains(notification)) {
+            return Boolean.TRUE.equals(notification.getReadFlag()); // sequenza appena assegnata, non ancora sistemata
+        }
+        return notification.getSeq() <= readSeq;
     }
 }
@@ -0,0 +1,60 @@
+package model.notification;
+
+import java.util.Locale;
+
+/**
+ * Testi delle notifiche. Una notifica salva solo il template e i suoi parametri;
+ * il testo viene composto quando viene letto. Gli ID sono salvati nel database e non vanno cambiati.
+ */
+public enum NotificationTemplate {
+    FREE_TEXT(0, "%s"),
+    APPLICATION_ACCEPTED(1, "Your application for the trip \"%s\" has been accepted."),
+    APPLICATION_REJECTED(2, "Your application for the trip \"%s\" has been rejected. :("),
+    APPLICATION_WITHDRAWN(3, "Your application for the trip \"%s\" has been withdrawn."),
+    GUIDE_ASSIGNED(4, "You have been assigned to the trip: %s"),
+    GUIDES_COMPLETE(5, "The guides for your trip \"%s\" have been assigned and are now complete."),
+    TRIP_UPDATED(6, "Trip details updated: %s");
+
+    // Indicizzato per ID, non per posizione: gli ID possono avere buchi (template ritirati)
+    private static final NotificationTemplate[] BY_ID;
+
+    static {
+        int maxId = -1;
+        for (NotificationTemplate template : values()) {
+            if (template.id < 0) {
+                throw new IllegalStateException("Negative id for notification template " + template);
+            }
+            maxId = Math.max(maxId, template.id);
+        }
+        BY_ID = new NotificationTemplate[maxId + 1];
+        for (NotificationTemplate template : values()) {
+            if (BY_ID[template.id] != null) {
+                throw new IllegalStateException("Duplicate notification template id " + template.id);
+            }
+            BY_ID[template.id] = template;
+        }
+    }
+
+    private final int id;
+    private final String pattern;
+
+    NotificationTemplate(int id, String pattern) {
+        this.id = id;
+        this.pattern = pattern;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String render(String[] params) {
+        return String.format(Locale.ROOT, pattern, (Object[]) params);
+    }
+
+    public static NotificationTemplate fromId(int id) {
+        if (id < 0 || id >= BY_ID.length || BY_ID[id] == null) {
+            throw new IllegalArgumentException("Unknown notification template: " + id);
+        }
+        return BY_ID[id];
+    }
+}
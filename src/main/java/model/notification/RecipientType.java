@@ -0,0 +1,9 @@
+package model.notification;
+
+/**
+ * Tipo di destinatario di una notifica; insieme all'ID del profilo identifica il destinatario nel database.
+ */
+public enum RecipientType {
+    GUIDE,
+    TRAVELER
+}
@@ -6,8 +6,16 @@ import java.util.List;
 
 
 public class ReviewRegister {
+    public static final int MAX_STARS = 5;
+
     private List<Review> reviews = new ArrayList<>();
-    private double averageRating;
+    // Running aggregates: add and remove are O(1), the average never re-scans the reviews
+    private long ratingSum;
+    private int ratingCount;
+    private final int[] starHistogram = new int[MAX_STARS]; // starHistogram[i] = reviews with i + 1 stars
+    private volatile double averageRating;
+    // false when the register was rebuilt from aggregates only, without the Review objects
+    private boolean reviewsLoaded = true;
 
     public ReviewRegister() {
         reviews = new ArrayList<>();
@@ -17,38 +25,70 @@ public class ReviewRegister {
     // Constructor for reconstruction from database
     public ReviewRegister(List<Review> reviews) {
         this.reviews = reviews;
+        for (Review r : reviews) {
+            count(r.getRating(), 1);
+        }
+        updateAverageRating();
+    }
+
+    // Constructor for reconstruction from the aggregates stored in the database (see ReviewDAO.getRatingHistogram)
+    public ReviewRegister(int[] ratingHistogram) {
+        for (int stars = 1; stars <= MAX_STARS && stars <= ratingHistogram.length; stars++) {
+            count(stars, ratingHistogram[stars - 1]);
+        }
+        this.reviewsLoaded = false;
         updateAverageRating();
     }
 
 
 
-    public void addReview(Review review) {
+    public synchronized void addReview(Review review) {
         reviews.add(review);
+        count(review.getRating(), 1);
         updateAverageRating();
     }
 
-    public void removeReview(Review review) {
-        reviews.remove(review);
-        updateAverageRating();
+    public synchronized void removeReview(Review review) {
+        if (reviews.remove(review) || !reviewsLoaded) {
+            count(review.getRating(), -1);
+            updateAverageRating();
+        }
     }
 
+    // Vuota se il registro è stato ricostruito dal solo istogramma (vedi isReviewsLoaded)
     public List<Review> getReviews() {
         return reviews;
     }
 
+    public boolean isReviewsLoaded() {
+        return reviewsLoaded;
+    }
+
     public double getAverageRating() {
         return averageRating;
     }
 
+    public synchronized int getReviewCount() {
+        return ratingCount;
+    }
+
+    public synchronized int[] getStarHistogram() {
+        return starHistogram.clone();
+    }
+
+    private void count(int rating, int delta) {
+        ratingSum += (long) rating * delta;
+        ratingCount += delta;
+        if (rating >= 1 && rating <= MAX_STARS) {
+            starHistogram[rating - 1] += delta;
+        }
+    }
+
     private void updateAverageRating() {
-        if (reviews.isEmpty()) {
+        if (ratingCount <= 0) {
             averageRating = 0;
             return;
         }
-        int total = 0;
-        for (Review r : reviews) {
-            total += r.getRating();
-        }
-        averageRating = (double) total / reviews.size();
+        averageRating = (double) ratingSum / ratingCount;
     }
 }
@@ -6,7 +6,10 @@ import model.review.Review;
 import model.review.ReviewRegister;
 import model.review.Reviewable;
 import model.user.Skill;
+import model.application.Application;
 import model.application.ApplicationRegister;
+import model.assignment.Assignment;
+import model.booking.Booking;
 import java.time.LocalDate;
 
 import java.util.ArrayList;
@@ -19,12 +22,20 @@ public class Trip implements Reviewable {
     private double price;
     private LocalDate date;
 
-    private List<Skill> requiredSkills;
-    private List<Activity> plannedActivities;
-    private ReviewRegister reviews;
-    private BookingRegister bookings;
-    private AssignmentRegister assignedGuides;
-    private ApplicationRegister applicationRegister;
+    private long requiredSkillMask;
+    private int minTrav;
+    private int maxTrav;
+    private int maxGuides;
+    private int bookedSeats; // posti occupati secondo il DB, finché le prenotazioni non sono caricate
+    private volatile boolean hashedWhileUnsaved; // vedi hashCode()
+
+    // Collezioni create al primo accesso; per i viaggi letti dal DB vengono caricate tramite il loader
+    private volatile TripRegisterLoader registerLoader;
+    private volatile List<Activity> plannedActivities;
+    private volatile ReviewRegister reviews;
+    private volatile BookingRegister bookings;
+    private volatile AssignmentRegister assignedGuides;
+    private volatile ApplicationRegister applicationRegister;
 
     // Constructor for new Trip (ID will be assigned by the database)
     public Trip(String title, String description, double price, LocalDate date, int minTrav, int maxTrav, int maxGuides) {
@@ -33,12 +44,10 @@ public class Trip implements Reviewable {
         this.description = description;
         this.price = price;
         this.date = date;
-        this.requiredSkills = new ArrayList<>();
-        this.plannedActivities = new ArrayList<>();
-        this.reviews = new ReviewRegister();
-        this.bookings = new BookingRegister(minTrav, maxTrav);
-        this.assignedGuides = new AssignmentRegister(maxGuides);
-        this.applicationRegister = new ApplicationRegister();
+        this.requiredSkillMask = 0L;
+        this.minTrav = minTrav;
+        this.maxTrav = maxTrav;
+        this.maxGuides = maxGuides;
     }
 
     public Trip(int tripId, String title, String description, double price, LocalDate date, int minTrav, int maxTrav, int maxGuides) {
@@ -47,12 +56,10 @@ public class Trip implements Reviewable {
         this.description = description;
         this.price = price;
         this.date = date;
-        this.requiredSkills = new ArrayList<>();
-        this.plannedActivities = new ArrayList<>();
-        this.reviews = new ReviewRegister();
-        this.bookings = new BookingRegister(minTrav, maxTrav);
-        this.assignedGuides = new AssignmentRegister(maxGuides);
-        this.applicationRegister = new ApplicationRegister();
+        this.requiredSkillMask = 0L;
+        this.minTrav = minTrav;
+        this.maxTrav = maxTrav;
+        this.maxGuides = maxGuides;
     }
 
     // Getters & Setters
@@ -60,7 +67,17 @@ public class Trip implements Reviewable {
         return tripId;
     }
 
+    // L'ID entra in equals/hashCode: si assegna una sola volta e non a un viaggio già usato come chiave
     public void setTripId(int tripId) {
+        if (tripId == this.tripId) {
+            return;
+        }
+        if (this.tripId != 0) {
+            throw new IllegalStateException("Trip " + this.tripId + " already has an ID");
+        }
+        if (hashedWhileUnsaved) {
+            throw new IllegalStateException("Trip was used as a hash key before being saved");
+        }
         this.tripId = tripId;
     }
 
@@ -97,28 +114,133 @@ public class Trip implements Reviewable {
     }
 
     public List<Skill> getRequiredSkills() {
-        return requiredSkills;
+        return Skill.fromMask(requiredSkillMask);
     }
 
     public void setRequiredSkills(List<Skill> requiredSkills) {
-        this.requiredSkills = requiredSkills;
+        this.requiredSkillMask = Skill.toMask(requiredSkills);
+    }
+
+    public long getRequiredSkillMask() {
+        return requiredSkillMask;
+    }
+
+    public void setRequiredSkillMask(long requiredSkillMask) {
+        this.requiredSkillMask = requiredSkillMask;
+    }
+
+    public int getMinTrav() {
+        return minTrav;
+    }
+
+    public int getMaxTrav() {
+        return maxTrav;
+    }
+
+    // Le capacità si cambiano qui: aggiornano anche i registri già caricati, senza forzarne il caricamento
+    public void setMinTrav(int minTrav) {
+        this.minTrav = minTrav;
+        BookingRegister register = bookings;
+        if (register != null) {
+            register.setMinTrav(minTrav);
+        }
+    }
+
+    public void setMaxTrav(int maxTrav) {
+        this.maxTrav = maxTrav;
+        BookingRegister register = bookings;
+        if (register != null) {
+            register.setMaxTrav(maxTrav);
+        }
+    }
+
+    public int getBookedSeats() {
+        BookingRegister register = bookings;
+        return register != null ? register.getBookedSeats() : bookedSeats;
+    }
+
+    public void setBookedSeats(int bookedSeats) {
+        this.bookedSeats = bookedSeats;
+        BookingRegister register = bookings;
+        if (register != null) {
+            register.setBookedSeats(bookedSeats);
+        }
+    }
+
+    // Non forza il caricamento delle prenotazioni
+    public int getAvailableSpots() {
+        BookingRegister register = bookings;
+        return register != null ? register.getAvailableSpots() : maxTrav - bookedSeats;
+    }
+
+    public void setRegisterLoader(TripRegisterLoader registerLoader) {
+        this.registerLoader = registerLoader;
+    }
+
+    public boolean isLoaded(TripFetchPlan.Part part) {
+        switch (part) {
+            case ACTIVITIES: return plannedActivities != null;
+            case REVIEWS: return reviews != null;
+            case BOOKINGS: return bookings != null;
+            case ASSIGNMENTS: return assignedGuides != null;
+            default: return applicationRegister != null;
+        }
+    }
+
+    // Carica subito le parti richieste dal piano
+    public void fetch(TripFetchPlan plan) {
+        if (plan.includes(TripFetchPlan.Part.ACTIVITIES)) getPlannedActivities();
+        if (plan.includes(TripFetchPlan.Part.REVIEWS)) getReviewRegister();
+        if (plan.includes(TripFetchPlan.Part.BOOKINGS)) getBookingRegister();
+        if (plan.includes(TripFetchPlan.Part.ASSIGNMENTS)) getAssignmentRegister();
+        if (plan.includes(TripFetchPlan.Part.APPLICATIONS)) getApplicationRegister();
     }
 
     public List<Activity> getPlannedActivities() {
-        return plannedActivities;
+        List<Activity> activities = plannedActivities;
+        if (activities == null) {
+            synchronized (this) {
+                activities = plannedActivities;
+                if (activities == null) {
+                    activities = new ArrayList<>();
+                    TripRegisterLoader loader = loaderForLazyLoad();
+                    if (loader != null) {
+                        addAllNonNull(activities, loader.loadActivities(this));
+                    }
+                    plannedActivities = activities;
+                }
+            }
+        }
+        return activities;
     }
 
     public void setPlannedActivities(List<Activity> plannedActivities) {
         this.plannedActivities = plannedActivities;
     }
 
-
     public void setReviews(ReviewRegister reviews) {
         this.reviews = reviews;
     }
 
     public BookingRegister getBookingRegister() {
-        return bookings;
+        BookingRegister register = bookings;
+        if (register == null) {
+            synchronized (this) {
+                register = bookings;
+                if (register == null) {
+                    register = new BookingRegister(minTrav, maxTrav);
+                    TripRegisterLoader loader = loaderForLazyLoad();
+                    if (loader != null) {
+                        List<Booking> loaded = new ArrayList<>();
+                        addAllNonNull(loaded, loader.loadBookings(this));
+                        register.addBookings(loaded);
+                    }
+                    register.setBookedSeats(bookedSeats);
+                    bookings = register;
+                }
+            }
+        }
+        return register;
     }
 
     public void setBookingRegister(BookingRegister bookings) {
@@ -126,34 +248,122 @@ public class Trip implements Reviewable {
     }
 
     public AssignmentRegister getAssignmentRegister() {
-        return assignedGuides;
+        AssignmentRegister register = assignedGuides;
+        if (register == null) {
+            synchronized (this) {
+                register = assignedGuides;
+                if (register == null) {
+                    register = new AssignmentRegister(maxGuides);
+                    TripRegisterLoader loader = loaderForLazyLoad();
+                    if (loader != null) {
+                        List<Assignment> loaded = new ArrayList<>();
+                        addAllNonNull(loaded, loader.loadAssignments(this));
+                        register.setAssignments(loaded);
+                    }
+                    assignedGuides = register;
+                }
+            }
+        }
+        return register;
     }
 
     public void setAssignmentRegister(AssignmentRegister assignedGuides) {
         this.assignedGuides = assignedGuides;
     }
 
-    public model.application.ApplicationRegister getApplicationRegister() {
-        return applicationRegister;
+    public ApplicationRegister getApplicationRegister() {
+        ApplicationRegister register = applicationRegister;
+        if (register == null) {
+            synchronized (this) {
+                register = applicationRegister;
+                if (register == null) {
+                    TripRegisterLoader loader = loaderForLazyLoad();
+                    List<Application> loaded = new ArrayList<>();
+                    if (loader != null) {
+                        addAllNonNull(loaded, loader.loadApplications(this));
+                    }
+                    register = new ApplicationRegister(loaded);
+                    applicationRegister = register;
+                }
+            }
+        }
+        return register;
+    }
+
+    public void setApplicationRegister(ApplicationRegister applicationRegister) {
+        this.applicationRegister = applicationRegister;
     }
 
     // Reviewable implementation
 
     @Override
     public void addReview(Review review) {
-        reviews.addReview(review);
+        getReviewRegister().addReview(review);
     }
 
     public ReviewRegister getReviewRegister() {
-        return reviews;
+        ReviewRegister register = reviews;
+        if (register == null) {
+            synchronized (this) {
+                register = reviews;
+                if (register == null) {
+                    TripRegisterLoader loader = loaderForLazyLoad();
+                    List<Review> loaded = new ArrayList<>();
+                    if (loader != null) {
+                        addAllNonNull(loaded, loader.loadReviews(this));
+                    }
+                    register = new ReviewRegister(loaded);
+                    reviews = register;
+                }
+            }
+        }
+        return register;
     }
 
+    // Un viaggio non ancora salvato non ha niente da caricare
+    private TripRegisterLoader loaderForLazyLoad() {
+        return tripId != 0 ? registerLoader : null;
+    }
+
+    private static <T> void addAllNonNull(List<T> target, List<? extends T> loaded) {
+        if (loaded != null) {
+            target.addAll(loaded);
+        }
+    }
 
     public int getMaxGuides() {
-        return assignedGuides.getMaxGuides();
+        AssignmentRegister register = assignedGuides;
+        return register != null ? register.getMaxGuides() : maxGuides;
+    }
+
+    public void setMaxGuides(int maxGuides) {
+        this.maxGuides = maxGuides;
+        AssignmentRegister register = assignedGuides;
+        if (register != null) {
+            register.setMaxGuides(maxGuides);
+        }
     }
 
     public boolean isAlreadyStarted() {
         return date.isBefore(LocalDate.now());
     }
+
+    // Two trips are equal when they have the same database ID; unsaved trips (ID 0) are only equal to themselves.
+    // An unsaved trip can be hashed, but then it can no longer receive an ID (setTripId throws)
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Trip)) return false;
+        Trip other = (Trip) o;
+        return tripId != 0 && tripId == other.tripId;
+    }
+
+    @Override
+    public int hashCode() {
+        if (tripId == 0) {
+            hashedWhileUnsaved = true;
+            return System.identityHashCode(this);
+        }
+        return Integer.hashCode(tripId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package model.trip;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import model.user.Skill;
+
+/**
+ * Criteri di ricerca dei viaggi che il DAO può tradurre in una clausola WHERE parametrizzata.
+ * Ogni criterio a null (o false) non viene applicato.
+ */
+public class TripCriteria {
+    private final LocalDate minDate;
+    private final LocalDate maxDate;
+    private final Double maxPrice;
+    private final boolean onlyWithFreeSpots;
+    // Skill mask of the searcher: trips requiring any other skill are excluded
+    private final Long availableSkillMask;
+
+    public TripCriteria(LocalDate minDate, LocalDate maxDate, Double maxPrice, boolean onlyWithFreeSpots, Long availableSkillMask) {
+        this.minDate = minDate;
+        this.maxDate = maxDate;
+        this.maxPrice = maxPrice;
+        this.onlyWithFreeSpots = onlyWithFreeSpots;
+        this.availableSkillMask = availableSkillMask;
+    }
+
+    public LocalDate getMinDate() {
+        return minDate;
+    }
+
+    public LocalDate getMaxDate() {
+        return maxDate;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean isOnlyWithFreeSpots() {
+        return onlyWithFreeSpots;
+    }
+
+    public Long getAvailableSkillMask() {
+        return availableSkillMask;
+    }
+
+    // Stessa semantica della clausola WHERE costruita da TripDAO.findPage
+    public boolean matches(Trip trip) {
+        if (minDate != null && trip.getDate().isBefore(minDate)) return false;
+        if (maxDate != null && trip.getDate().isAfter(maxDate)) return false;
+        if (maxPrice != null && trip.getPrice() > maxPrice) return false;
+        if (onlyWithFreeSpots && trip.getAvailableSpots() <= 0) return false;
+        return availableSkillMask == null || Skill.covers(availableSkillMask, trip.getRequiredSkillMask());
+    }
+
+    // Criteri uguali danno lo stesso risultato: usati come chiave della cache delle ricerche
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TripCriteria)) return false;
+        TripCriteria other = (TripCriteria) o;
+        return onlyWithFreeSpots == other.onlyWithFreeSpots
+                && Objects.equals(minDate, other.minDate)
+                && Objects.equals(maxDate, other.maxDate)
+                && Objects.equals(maxPrice, other.maxPrice)
+                && Objects.equals(availableSkillMask, other.availableSkillMask);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minDate, maxDate, maxPrice, onlyWithFreeSpots, availableSkillMask);
+    }
+}
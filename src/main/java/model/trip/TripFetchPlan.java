@@ -0,0 +1,43 @@
+package model.trip;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Quali parti di un viaggio caricare subito insieme ai campi scalari.
+ * Le parti non richieste restano lazy e vengono caricate al primo accesso.
+ */
+public final class TripFetchPlan {
+
+    /**
+     * REVIEWS carica solo il riepilogo (istogramma dei voti, quindi media e conteggio):
+     * il registro risultante ha {@link model.review.ReviewRegister#isReviewsLoaded()} a false e una lista di
+     * recensioni vuota. Senza REVIEWS nel piano, il primo accesso lazy carica invece le recensioni complete.
+     */
+    public enum Part { ACTIVITIES, REVIEWS, BOOKINGS, ASSIGNMENTS, APPLICATIONS }
+
+    public static final TripFetchPlan LAZY = new TripFetchPlan(EnumSet.noneOf(Part.class));
+    public static final TripFetchPlan ALL = new TripFetchPlan(EnumSet.allOf(Part.class));
+
+    private final Set<Part> parts;
+
+    private TripFetchPlan(Set<Part> parts) {
+        this.parts = parts;
+    }
+
+    public static TripFetchPlan of(Part first, Part... rest) {
+        return new TripFetchPlan(EnumSet.of(first, rest));
+    }
+
+    public boolean includes(Part part) {
+        return parts.contains(part);
+    }
+
+    public boolean isLazy() {
+        return parts.isEmpty();
+    }
+
+    public Set<Part> getParts() {
+        return parts.isEmpty() ? EnumSet.noneOf(Part.class) : EnumSet.copyOf(parts);
+    }
+}
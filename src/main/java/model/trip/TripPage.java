@@ -0,0 +1,34 @@
+package model.trip;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Una pagina di viaggi ordinata per (date, id).
+ * L'ultima coppia (date, id) è la chiave da cui parte la pagina successiva (keyset pagination).
+ */
+public class TripPage {
+    private final List<Trip> trips;
+    private final boolean hasNext;
+
+    public TripPage(List<Trip> trips, boolean hasNext) {
+        this.trips = trips;
+        this.hasNext = hasNext;
+    }
+
+    public List<Trip> getTrips() {
+        return trips;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public LocalDate getLastDate() {
+        return trips.isEmpty() ? null : trips.get(trips.size() - 1).getDate();
+    }
+
+    public int getLastId() {
+        return trips.isEmpty() ? 0 : trips.get(trips.size() - 1).getTripId();
+    }
+}
@@ -0,0 +1,19 @@
+package model.trip;
+
+import model.application.Application;
+import model.assignment.Assignment;
+import model.booking.Booking;
+import model.review.Review;
+
+import java.util.List;
+
+/**
+ * Carica su richiesta le collezioni di un viaggio letto dal DB (vedi {@link Trip#setRegisterLoader}).
+ */
+public interface TripRegisterLoader {
+    List<Activity> loadActivities(Trip trip);
+    List<Review> loadReviews(Trip trip);
+    List<Booking> loadBookings(Trip trip);
+    List<Assignment> loadAssignments(Trip trip);
+    List<Application> loadApplications(Trip trip);
+}
@@ -3,6 +3,7 @@ package model.user;
 import model.notification.Notifiable;
 import model.notification.Notification;
 import model.notification.NotificationRegister;
+import model.notification.RecipientType;
 import model.review.Review;
 import model.review.ReviewRegister;
 import model.review.Reviewable;
@@ -11,7 +12,7 @@ import java.util.List;
 
 public class Guide implements Notifiable, Reviewable {
     private int guideId;
-    private List<Skill> skills;
+    private long skillMask;
 
     private ReviewRegister reviews;
     private NotificationRegister notifications;
@@ -20,7 +21,7 @@ public class Guide implements Notifiable, Reviewable {
     // Constructor for new Guide (created from scratch)
     public Guide(User owner) {
         this.guideId = 0;
-        this.skills = null;
+        this.skillMask = 0L;
         this.owner = owner;
         this.reviews = new ReviewRegister();
         this.notifications = new NotificationRegister();
@@ -29,7 +30,7 @@ public class Guide implements Notifiable, Reviewable {
     // Constructor for Guide reconstructed from database
     public Guide(int guideId, List<Skill> skills, User owner, ReviewRegister reviews, NotificationRegister notifications) {
         this.guideId = guideId;
-        this.skills = skills;
+        this.skillMask = Skill.toMask(skills);
         this.owner = owner;
         this.reviews = reviews;
         this.notifications = notifications;
@@ -45,11 +46,23 @@ public class Guide implements Notifiable, Reviewable {
     }
 
     public List<Skill> getSkills() {
-        return skills;
+        return Skill.fromMask(skillMask);
     }
 
     public void setSkills(List<Skill> skills) {
-        this.skills = skills;
+        this.skillMask = Skill.toMask(skills);
+    }
+
+    public long getSkillMask() {
+        return skillMask;
+    }
+
+    public void setSkillMask(long skillMask) {
+        this.skillMask = skillMask;
+    }
+
+    public boolean hasAllSkills(long requiredSkillMask) {
+        return Skill.covers(skillMask, requiredSkillMask);
     }
 
 
@@ -94,6 +107,16 @@ public class Guide implements Notifiable, Reviewable {
         return notifications;
     }
 
+    @Override
+    public RecipientType getRecipientType() {
+        return RecipientType.GUIDE;
+    }
+
+    @Override
+    public int getRecipientId() {
+        return guideId;
+    }
+
     // Reviewable implementation
     @Override
     public void addReview(Review review) {
@@ -1,10 +1,68 @@
 package model.user;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public enum Skill {
-    TREKKING,
-    CLIMBING,
-    HISTORY_EXPERT,
-    LANGUAGE_ENGLISH,
-    LANGUAGE_SPANISH,
-    FIRST_AID
+    // Il bit di ogni skill è salvato in trips.required_skills e guides.skills: non va mai cambiato né riusato.
+    // Una nuova skill prende il primo bit libero, indipendentemente dalla posizione nell'enum.
+    TREKKING(0),
+    CLIMBING(1),
+    HISTORY_EXPERT(2),
+    LANGUAGE_ENGLISH(3),
+    LANGUAGE_SPANISH(4),
+    FIRST_AID(5);
+
+    // Le colonne sono INTEGER e il confronto SQL usa CAST(? AS INTEGER)
+    private static final int MAX_BIT = 30;
+
+    static {
+        long seen = 0L;
+        for (Skill skill : values()) {
+            if ((seen & skill.mask()) != 0) {
+                throw new IllegalStateException("Duplicate skill bit " + skill.bit + " for " + skill);
+            }
+            seen |= skill.mask();
+        }
+    }
+
+    private final int bit;
+
+    Skill(int bit) {
+        if (bit < 0 || bit > MAX_BIT) {
+            throw new IllegalArgumentException("Skill bit out of range: " + bit);
+        }
+        this.bit = bit;
+    }
+
+    // Each skill is one stable bit of a long mask; the mask is persisted as a single integer column
+    public long mask() {
+        return 1L << bit;
+    }
+
+    public static long toMask(Collection<Skill> skills) {
+        long mask = 0L;
+        if (skills != null) {
+            for (Skill skill : skills) {
+                mask |= skill.mask();
+            }
+        }
+        return mask;
+    }
+
+    public static List<Skill> fromMask(long mask) {
+        List<Skill> skills = new ArrayList<>();
+        for (Skill skill : values()) {
+            if ((mask & skill.mask()) != 0) {
+                skills.add(skill);
+            }
+        }
+        return skills;
+    }
+
+    // True if every skill in requiredMask is also in availableMask
+    public static boolean covers(long availableMask, long requiredMask) {
+        return (requiredMask & ~availableMask) == 0;
+    }
 }
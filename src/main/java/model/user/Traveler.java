@@ -3,6 +3,7 @@ package model.user;
 import model.notification.Notifiable;
 import model.notification.Notification;
 import model.notification.NotificationRegister;
+import model.notification.RecipientType;
 
 public class Traveler implements Notifiable {
     private int travelerId;
@@ -66,4 +67,14 @@ public class Traveler implements Notifiable {
     public NotificationRegister getNotificationRegister() {
         return notifications;
     }
+
+    @Override
+    public RecipientType getRecipientType() {
+        return RecipientType.TRAVELER;
+    }
+
+    @Override
+    public int getRecipientId() {
+        return travelerId;
+    }
 }
@@ -0,0 +1,132 @@
+-- Migrazione completa dello schema usato dai DAO.
+-- Presuppone solo le tabelle già esistenti users (user_id, username, email, password)
+-- e trips (id, title, description); tutto il resto viene creato o aggiunto qui.
+-- Lo script si può rieseguire: crea solo quello che manca.
+
+-- Viaggi: dati del viaggio, capacità, skill richieste (bitmask di Skill) e posti occupati
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS price           DOUBLE PRECISION NOT NULL DEFAULT 0;
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS date            DATE             NOT NULL DEFAULT CURRENT_DATE;
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS min_trav        INTEGER          NOT NULL DEFAULT 0;
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS max_trav        INTEGER          NOT NULL DEFAULT 0;
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS max_guides      INTEGER          NOT NULL DEFAULT 0;
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS required_skills INTEGER          NOT NULL DEFAULT 0;
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS booked          INTEGER          NOT NULL DEFAULT 0;
+
+-- Paginazione per chiave (date, id) di TripDAO.findPage
+CREATE INDEX IF NOT EXISTS trips_date_id_idx ON trips (date, id);
+
+-- Profili
+CREATE TABLE IF NOT EXISTS guides (
+    id      SERIAL  PRIMARY KEY,
+    user_id INTEGER NOT NULL REFERENCES users (user_id) ON DELETE CASCADE
+);
+ALTER TABLE guides ADD COLUMN IF NOT EXISTS skills INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS travelers (
+    id      SERIAL  PRIMARY KEY,
+    user_id INTEGER NOT NULL REFERENCES users (user_id) ON DELETE CASCADE
+);
+
+-- Collezioni dei viaggi
+CREATE TABLE IF NOT EXISTS activities (
+    id          SERIAL  PRIMARY KEY,
+    trip_id     INTEGER NOT NULL REFERENCES trips (id) ON DELETE CASCADE,
+    name        TEXT    NOT NULL,
+    description TEXT,
+    duration    INTEGER NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS activities_trip_idx ON activities (trip_id);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id          SERIAL  PRIMARY KEY,
+    traveler_id INTEGER NOT NULL REFERENCES travelers (id) ON DELETE CASCADE,
+    trip_id     INTEGER NOT NULL REFERENCES trips (id) ON DELETE CASCADE,
+    date        DATE    NOT NULL DEFAULT CURRENT_DATE,
+    UNIQUE (trip_id, traveler_id)
+);
+
+CREATE TABLE IF NOT EXISTS assignments (
+    id       SERIAL  PRIMARY KEY,
+    guide_id INTEGER NOT NULL REFERENCES guides (id) ON DELETE CASCADE,
+    trip_id  INTEGER NOT NULL REFERENCES trips (id) ON DELETE CASCADE,
+    date     DATE    NOT NULL DEFAULT CURRENT_DATE
+);
+CREATE INDEX IF NOT EXISTS assignments_trip_idx ON assignments (trip_id);
+
+CREATE TABLE IF NOT EXISTS applications (
+    id       SERIAL      PRIMARY KEY,
+    guide_id INTEGER     NOT NULL REFERENCES guides (id) ON DELETE CASCADE,
+    trip_id  INTEGER     NOT NULL REFERENCES trips (id) ON DELETE CASCADE,
+    cv       TEXT,
+    status   VARCHAR(16) NOT NULL DEFAULT 'PENDING'
+);
+CREATE INDEX IF NOT EXISTS applications_trip_idx ON applications (trip_id);
+CREATE INDEX IF NOT EXISTS applications_guide_idx ON applications (guide_id);
+
+CREATE TABLE IF NOT EXISTS reviews (
+    id          SERIAL   PRIMARY KEY,
+    rating      SMALLINT NOT NULL CHECK (rating BETWEEN 1 AND 5),
+    comment     TEXT,
+    traveler_id INTEGER  REFERENCES travelers (id) ON DELETE SET NULL,
+    trip_id     INTEGER  REFERENCES trips (id) ON DELETE CASCADE,
+    guide_id    INTEGER  REFERENCES guides (id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS reviews_trip_idx ON reviews (trip_id);
+CREATE INDEX IF NOT EXISTS reviews_guide_idx ON reviews (guide_id);
+
+-- I posti occupati partono dalle prenotazioni già presenti
+UPDATE trips t SET booked = b.n
+FROM (SELECT trip_id, COUNT(*) AS n FROM bookings GROUP BY trip_id) b
+WHERE b.trip_id = t.id AND t.booked <> b.n;
+
+-- Notifiche: destinatario (tipo + id del profilo), sequenza per destinatario, template e parametri
+CREATE TABLE IF NOT EXISTS notifications (
+    id SERIAL PRIMARY KEY
+);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS recipient_type VARCHAR(16);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS recipient_id   INTEGER;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS seq            BIGINT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS template_id    SMALLINT  NOT NULL DEFAULT 0;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS params         TEXT[]    NOT NULL DEFAULT '{}';
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS read           BOOLEAN   NOT NULL DEFAULT FALSE;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS created_at     TIMESTAMP NOT NULL DEFAULT now();
+
+-- Le righe senza sequenza la ricevono in ordine di id
+UPDATE notifications n SET seq = s.seq
+FROM (SELECT id, COALESCE((SELECT MAX(seq) FROM notifications m
+                           WHERE m.recipient_type = x.recipient_type AND m.recipient_id = x.recipient_id), 0)
+                 + ROW_NUMBER() OVER (PARTITION BY recipient_type, recipient_id ORDER BY id) AS seq
+      FROM notifications x WHERE x.seq IS NULL) s
+WHERE n.id = s.id;
+
+CREATE TABLE IF NOT EXISTS notification_watermarks (
+    recipient_type VARCHAR(16) NOT NULL,
+    recipient_id   INTEGER     NOT NULL,
+    read_seq       BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (recipient_type, recipient_id)
+);
+
+-- Ultima sequenza assegnata a ogni destinatario: è l'unica fonte delle sequenze (vedi ConcreteNotificationDAO.allocateSeqs)
+CREATE TABLE IF NOT EXISTS notification_counters (
+    recipient_type VARCHAR(16) NOT NULL,
+    recipient_id   INTEGER     NOT NULL,
+    last_seq       BIGINT      NOT NULL,
+    PRIMARY KEY (recipient_type, recipient_id)
+);
+
+-- I contatori partono dalle sequenze già presenti
+INSERT INTO notification_counters (recipient_type, recipient_id, last_seq)
+SELECT recipient_type, recipient_id, MAX(seq) FROM notifications
+WHERE recipient_type IS NOT NULL AND recipient_id IS NOT NULL
+GROUP BY recipient_type, recipient_id
+ON CONFLICT (recipient_type, recipient_id)
+DO UPDATE SET last_seq = GREATEST(notification_counters.last_seq, EXCLUDED.last_seq);
+
+-- Watermark di lettura e paginazione per chiave contano su sequenze uniche per destinatario
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'notifications_recipient_seq_key') THEN
+        ALTER TABLE notifications
+            ADD CONSTRAINT notifications_recipient_seq_key UNIQUE (recipient_type, recipient_id, seq);
+    END IF;
+END $$;
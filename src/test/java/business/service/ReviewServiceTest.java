@@ -0,0 +1,109 @@
+package business.service;
+
+import dao.interfaces.ReviewDAO;
+import model.review.Review;
+import model.review.ReviewRegister;
+import model.review.Reviewable;
+import model.user.Guide;
+import model.user.Traveler;
+import model.user.User;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReviewServiceTest {
+
+    private GuideRankingIndex rankingIndex;
+    private ReviewService reviewService;
+    private Guide first;
+    private Guide second;
+
+    @BeforeEach
+    public void setup() {
+        rankingIndex = new GuideRankingIndex();
+        reviewService = new ReviewService(new InMemoryReviewDAO(), new ReviewRegister(), rankingIndex);
+        first = guide(1);
+        second = guide(2);
+        reviewService.createAndAddReview(4, "Bene", first, null);
+        reviewService.createAndAddReview(3, "Così così", second, null);
+        rankingIndex.load(List.of(first, second));
+    }
+
+    private Guide guide(int id) {
+        Guide guide = new Guide(new User("g" + id, "g" + id + "@example.com", "pw"));
+        guide.setGuideId(id);
+        return guide;
+    }
+
+    @Test
+    public void testReviewUpdatesTargetAggregates() {
+        assertEquals(1, first.getReviewsRegister().getReviewCount());
+        assertEquals(4.0, first.getRating(), 1e-9);
+    }
+
+    @Test
+    public void testReviewMovesGuideInRanking() {
+        assertSame(first, rankingIndex.topK(Collections.emptyList(), 2).get(0));
+
+        reviewService.createAndAddReview(5, "Ottima", second, null);
+        reviewService.createAndAddReview(5, "Ottima", second, null);
+
+        List<Guide> ranking = rankingIndex.topK(Collections.emptyList(), 2);
+        assertSame(second, ranking.get(0), "Second guide now has a higher average rating");
+        assertSame(first, ranking.get(1));
+    }
+
+    @Test
+    public void testReviewIsCountedOnceWithTheTargetsOwnRegister() {
+        Guide guide = guide(3);
+        ReviewService service = new ReviewService(new InMemoryReviewDAO(), guide.getReviewsRegister());
+        service.createAndAddReview(5, "Ottima", guide, null);
+
+        assertEquals(1, guide.getReviewsRegister().getReviewCount());
+        assertEquals(1, guide.getReviewsRegister().getStarHistogram()[4]);
+    }
+
+        private static class InMemoryReviewDAO implements ReviewDAO {
+        private final List<Review> saved = new ArrayList<>();
+
+        @Override
+        public Review getById(int id) {
+            return null;
+        }
+
+        @Override
+        public List<Review> getByTarget(Reviewable target) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public int[] getRatingHistogram(Reviewable target) {
+            return new int[ReviewRegister.MAX_STARS];
+        }
+
+        @Override
+        public Map<Integer, int[]> getTripRatingHistograms(int[] tripIds) {
+            return new HashMap<>();
+        }
+
+        @Override
+        public List<Review> getByAuthor(Traveler author) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void save(Review review) {
+            saved.add(review);
+        }
+
+        @Override
+        public void delete(int id) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package business.service;
+
+import model.trip.Trip;
+import model.trip.TripCriteria;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TripSearchCacheTest {
+
+    private static final TripCriteria FREE_SPOTS = new TripCriteria(null, null, null, true, null);
+    private static final TripCriteria ANY = new TripCriteria(null, null, null, false, null);
+
+    private TripSearchCache cache;
+    private Trip trip;
+    private AtomicInteger searches;
+    private Function<TripCriteria, List<Trip>> search;
+
+    @BeforeEach
+    public void setup() {
+        cache = new TripSearchCache();
+        trip = new Trip(7, "Dolomiti", "Trekking", 300.0, LocalDate.now().plusDays(30), 1, 2, 1);
+        trip.setBookedSeats(1);
+        searches = new AtomicInteger();
+        search = criteria -> {
+            searches.incrementAndGet();
+            List<Trip> result = new ArrayList<>();
+            if (criteria.matches(trip)) {
+                result.add(trip);
+            }
+            return result;
+        };
+        cache.lookup(FREE_SPOTS, search);
+        cache.lookup(ANY, search);
+    }
+
+    @Test
+    public void testTripBecomingFullInvalidatesFreeSpotsSearch() {
+        trip.setBookedSeats(2);
+        cache.onCapacityChanged(trip);
+
+        assertEquals(1, cache.size(), "Only the free-spots search changes");
+        assertEquals(0, cache.lookup(FREE_SPOTS, search).length);
+        assertEquals(1, cache.lookup(ANY, search).length);
+        assertEquals(3, searches.get());
+    }
+
+    @Test
+    public void testCapacityChangeWithoutFlipKeepsEntries() {
+        trip.setBookedSeats(0);
+        cache.onCapacityChanged(trip);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.lookup(FREE_SPOTS, search).length);
+        assertEquals(2, searches.get());
+        assertEquals(0, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void testResultIsNotStoredIfInvalidatedDuringSearch() {
+        cache.invalidateAll();
+        Function<TripCriteria, List<Trip>> racingSearch = criteria -> {
+            List<Trip> result = search.apply(criteria);
+            trip.setBookedSeats(2); // prenotazione concorrente mentre la ricerca è in corso
+            cache.onCapacityChanged(trip);
+            return result;
+        };
+
+        assertEquals(1, cache.lookup(FREE_SPOTS, racingSearch).length);
+        assertEquals(0, cache.size(), "A result computed before the invalidation must not be cached");
+        assertEquals(0, cache.lookup(FREE_SPOTS, search).length);
+    }
+
+    @Test
+    public void testUnrelatedInvalidationDoesNotBlockStore() {
+        cache.invalidateAll();
+        Function<TripCriteria, List<Trip>> racingSearch = criteria -> {
+            List<Trip> result = search.apply(criteria);
+            cache.onCapacityChanged(trip); // nessun cambio di disponibilità: niente da invalidare
+            return result;
+        };
+
+        cache.lookup(ANY, racingSearch);
+        assertEquals(1, cache.size());
+        cache.lookup(ANY, search);
+        assertEquals(3, searches.get(), "The second lookup should be a hit");
+    }
+}
@@ -0,0 +1,75 @@
+package dao.cache;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityCacheTest {
+
+    private EntityCache<Integer, String> cache;
+
+    // capacity 100: finestra di 1 entrata, cache principale di 99
+    @BeforeEach
+    public void setup() {
+        cache = new EntityCache<>(100);
+        for (int id = 0; id < 100; id++) {
+            cache.put(id, "user" + id);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int id = 0; id < 99; id++) {
+                cache.get(id);
+            }
+        }
+    }
+
+    @Test
+    public void testColdCandidateIsRejected() {
+        cache.put(1000, "cold");
+        cache.put(1001, "pushes cold out of the window");
+
+        assertNull(cache.get(1000), "A key seen once must not evict a frequently read one");
+        for (int id = 0; id < 99; id++) {
+            assertNotNull(cache.get(id), "Hot key " + id + " should still be cached");
+        }
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testFrequentlyRequestedCandidateIsAdmitted() {
+        for (int i = 0; i < 10; i++) {
+            assertNull(cache.get(2000)); // i miss contano nella stima di frequenza
+        }
+        cache.put(2000, "popular");
+        cache.put(2001, "pushes popular out of the window");
+
+        assertEquals("popular", cache.get(2000));
+    }
+
+    @Test
+    public void testSketchAgesCounters() {
+        EntityCache.FrequencySketch sketch = new EntityCache.FrequencySketch(1000);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("hot");
+        }
+        assertEquals(15, sketch.frequency("hot"), "Counters saturate at 15");
+
+        // dopo 10 * capacity incrementi tutti i contatori vengono dimezzati
+        int additions = 0;
+        while (sketch.frequency("hot") == 15 && additions < 20_000) {
+            sketch.increment(additions++);
+        }
+        assertEquals(7, sketch.frequency("hot"));
+        assertTrue(additions <= 10_000, "Reset should happen within the sample size");
+    }
+
+    @Test
+    public void testPutIfCurrentIsSkippedAfterInvalidation() {
+        long generation = cache.generation();
+        cache.invalidate(5);
+
+        assertFalse(cache.putIfCurrent(5, "stale", generation));
+        assertNull(cache.get(5));
+        assertTrue(cache.putIfCurrent(5, "fresh", cache.generation()));
+        assertEquals("fresh", cache.get(5));
+    }
+}
@@ -0,0 +1,84 @@
+package dao.cache;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testCoalescedCallerReceivesLeaderException() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("database down");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<Throwable> leaderError = new AtomicReference<>();
+        AtomicReference<Throwable> followerError = new AtomicReference<>();
+
+        Thread leader = new Thread(() -> {
+            try {
+                flight.load(1, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    throw failure;
+                });
+            } catch (Throwable t) {
+                leaderError.set(t);
+            }
+        });
+        leader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Thread follower = new Thread(() -> {
+            try {
+                flight.load(1, () -> {
+                    loads.incrementAndGet();
+                    return "should not run";
+                });
+            } catch (Throwable t) {
+                followerError.set(t);
+            }
+        });
+        follower.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (flight.getCoalescedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, flight.getCoalescedCount());
+
+        release.countDown();
+        leader.join(5_000);
+        follower.join(5_000);
+
+        assertSame(failure, leaderError.get());
+        assertSame(failure, followerError.get(), "The follower should see the leader's exception, not a wrapper");
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    public void testKeyIsReleasedAfterFailure() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        assertThrows(IllegalStateException.class, () -> flight.load(1, () -> {
+            throw new IllegalStateException("first attempt");
+        }));
+
+        assertEquals("loaded", flight.load(1, () -> "loaded"));
+        assertEquals(0, flight.getCoalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package model.booking;
+
+import model.notification.NotificationRegister;
+import model.trip.Trip;
+import model.user.Traveler;
+import model.user.User;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingRegisterTest {
+
+    private Trip trip;
+    private BookingRegister register;
+
+    @BeforeEach
+    public void setup() {
+        trip = new Trip(1, "Dolomiti", "Trekking", 300.0, LocalDate.now().plusDays(30), 1, 3, 1);
+        register = trip.getBookingRegister();
+    }
+
+    private Traveler traveler(int id) {
+        return new Traveler(id, new User("t" + id, "t" + id + "@example.com", "pw"), new NotificationRegister());
+    }
+
+    @Test
+    public void testSeatsCannotBeOversold() {
+        assertTrue(register.tryReserveSeat());
+        assertTrue(register.tryReserveSeats(2));
+        assertFalse(register.tryReserveSeat(), "Trip is full");
+        assertEquals(0, register.getAvailableSpots());
+
+        register.releaseSeat();
+        assertEquals(1, register.getAvailableSpots());
+        assertFalse(register.tryReserveSeats(2), "Group reservation is all-or-nothing");
+        assertEquals(1, register.getAvailableSpots());
+    }
+
+    @Test
+    public void testLookupAndRemovalByTraveler() {
+        List<Booking> bookings = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            Booking booking = new Booking(traveler(id), trip);
+            assertTrue(register.addBooking(booking));
+            bookings.add(booking);
+        }
+        assertFalse(register.addBooking(new Booking(traveler(42), trip)), "Duplicate traveler must be rejected");
+
+        Booking removed = bookings.get(41);
+        assertTrue(register.removeBooking(removed));
+        assertFalse(register.removeBooking(removed), "A booking can only be removed (and its seat released) once");
+        assertFalse(register.hasBooking(removed.getTraveler()));
+        assertNull(register.getBookingByTraveler(removed.getTraveler()));
+        for (Booking booking : bookings) {
+            if (booking != removed) {
+                assertSame(booking, register.getBookingByTraveler(booking.getTraveler()));
+            }
+        }
+
+        bookings.remove(removed);
+        assertEquals(bookings, register.getAllBookings(), "Insertion order must be preserved");
+    }
+
+    @Test
+    public void testGroupIsRejectedIfAnyTravelerIsAlreadyBooked() {
+        assertTrue(register.addBooking(new Booking(traveler(2), trip)));
+
+        List<Booking> group = List.of(new Booking(traveler(1), trip), new Booking(traveler(2), trip));
+        assertFalse(register.addBookings(group), "Traveler 2 is already booked");
+        assertFalse(register.hasBooking(traveler(1)), "Nothing of a rejected group is added");
+        assertEquals(1, register.getBookings().size());
+    }
+
+    @Test
+    public void testGroupWithTheSameTravelerTwiceIsRejected() {
+        // due istanze distinte dello stesso viaggiatore
+        List<Booking> group = List.of(new Booking(traveler(3), trip), new Booking(traveler(3), trip));
+        assertFalse(register.addBookings(group));
+        assertTrue(register.getBookings().isEmpty());
+    }
+
+    @Test
+    public void testUnsavedTravelerIsRejected() {
+        Booking unsaved = new Booking(traveler(0), trip);
+        assertThrows(IllegalArgumentException.class, () -> register.addBooking(unsaved));
+        assertThrows(IllegalArgumentException.class, () -> register.addBookings(List.of(unsaved)));
+        assertTrue(register.getBookings().isEmpty());
+    }
+}